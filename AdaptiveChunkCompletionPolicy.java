@@ -0,0 +1,169 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+/**
+ * Taille de chunk ajustée pendant le step, entre {@code min} et {@code max}, d'après la
+ * durée de chaque chunk (lecture, traitement, écriture et commit), le débit d'écriture
+ * et les rollbacks observés.
+ * <p>
+ * Après chaque chunk :
+ * <ul>
+ *   <li>rollback (erreur ou nouvelle tentative) : la taille est divisée par deux ;</li>
+ *   <li>chunk plus long que la durée cible : réduction proportionnelle ;</li>
+ *   <li>chunk deux fois plus court que la cible : la taille double, sauf si le doublement
+ *       précédent a fait baisser le débit de plus de 10 % (retour à la taille précédente,
+ *       qui devient le plafond du step).</li>
+ * </ul>
+ * Chaque changement est noté dans l'ExecutionContext du step ({@value #CLE_TAILLE},
+ * {@value #CLE_DECISIONS} : les {@value #DECISIONS_CONSERVEES} dernières décisions), sauvé
+ * au commit suivant ; une exécution relancée repart de la dernière taille retenue, une
+ * nouvelle exécution de la taille initiale.
+ * Avec {@code min == max}, la taille est fixe comme avec {@code chunk(taille)}.
+ * <p>
+ * La politique est aussi le ChunkListener du step, et ne suit qu'une exécution de step non
+ * multi-threadé à la fois : elle est créée avec le step, déclaré {@code @JobScope} pour
+ * que deux exécutions simultanées du job ne la partagent pas :
+ * <pre>
+ * .chunk(politique, transactionManager)
+ * .listener((ChunkListener) politique)
+ * </pre>
+ */
+public class AdaptiveChunkCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener {
+
+    public static final String CLE_TAILLE = "chunk.adaptatif.taille";
+    public static final String CLE_DECISIONS = "chunk.adaptatif.decisions";
+    static final int DECISIONS_CONSERVEES = 20;
+
+    private final int min;
+    private final int max;
+    private final long dureeCibleNanos;
+    private final int tailleInitiale;
+    private final Deque<String> decisions = new ArrayDeque<>();
+
+    private StepExecution stepExecution;
+    private int plafond;
+    private long numeroChunk;
+    private long debutChunk;
+    private long ecritsAvant;
+    private long rollbacksAvant;
+    // Débit et taille avant le dernier doublement, pour le défaire s'il n'a rien apporté
+    private double debitAvantCroissance;
+    private int tailleAvantCroissance;
+
+    /**
+     * @param taille        taille initiale, ramenée dans [min, max]
+     * @param dureeCibleMs  durée visée pour un chunk, commit compris
+     */
+    public AdaptiveChunkCompletionPolicy(int taille, int min, int max, long dureeCibleMs) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Bornes de chunk invalides : [" + min + ", " + max + "]");
+        }
+        this.min = min;
+        this.max = max;
+        this.dureeCibleNanos = dureeCibleMs * 1_000_000L;
+        this.plafond = max;
+        this.tailleInitiale = borner(taille);
+        setChunkSize(tailleInitiale);
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepExecution execution = context.getStepContext().getStepExecution();
+        if (execution != stepExecution) {
+            demarrer(execution);
+        }
+        debutChunk = System.nanoTime();
+        ecritsAvant = execution.getWriteCount();
+        rollbacksAvant = execution.getRollbackCount();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long duree = System.nanoTime() - debutChunk;
+        long ecrits = stepExecution.getWriteCount() - ecritsAvant;
+        long rollbacks = stepExecution.getRollbackCount() - rollbacksAvant;
+        numeroChunk++;
+        if (rollbacks > 0) {
+            reduire(getChunkSize() / 2, "rollback", duree, ecrits);
+        } else if (ecrits > 0) {
+            ajuster(duree, ecrits);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        numeroChunk++;
+        reduire(getChunkSize() / 2, "erreur", System.nanoTime() - debutChunk, 0);
+    }
+
+    // Nouvelle exécution du step : taille retenue par une exécution précédente et historique
+    // repris, sinon taille initiale ; rien n'est gardé de l'exécution précédente de la politique
+    private void demarrer(StepExecution execution) {
+        stepExecution = execution;
+        numeroChunk = 0;
+        plafond = max;
+        tailleAvantCroissance = 0;
+        debitAvantCroissance = 0;
+        decisions.clear();
+        ExecutionContext contexte = execution.getExecutionContext();
+        setChunkSize(contexte.containsKey(CLE_TAILLE) ? borner(contexte.getInt(CLE_TAILLE)) : tailleInitiale);
+        if (contexte.containsKey(CLE_DECISIONS)) {
+            for (String decision : contexte.getString(CLE_DECISIONS).split("\n")) {
+                decisions.addLast(decision);
+            }
+        }
+    }
+
+    private void ajuster(long duree, long ecrits) {
+        int taille = getChunkSize();
+        double debit = ecrits * 1e9 / Math.max(duree, 1);
+        if (tailleAvantCroissance > 0) {
+            int precedente = tailleAvantCroissance;
+            tailleAvantCroissance = 0;
+            if (debit < 0.9 * debitAvantCroissance) {
+                plafond = precedente;
+                changer(precedente, "debit en baisse", duree, ecrits);
+                return;
+            }
+        }
+        if (duree > dureeCibleNanos) {
+            reduire((int) (taille * (double) dureeCibleNanos / duree), "duree", duree, ecrits);
+        } else if (duree < dureeCibleNanos / 2 && taille < plafond) {
+            tailleAvantCroissance = taille;
+            debitAvantCroissance = debit;
+            changer(Math.min(plafond, taille * 2), "duree", duree, ecrits);
+        }
+    }
+
+    private void reduire(int taille, String raison, long duree, long ecrits) {
+        tailleAvantCroissance = 0;
+        changer(taille, raison, duree, ecrits);
+    }
+
+    private void changer(int taille, String raison, long duree, long ecrits) {
+        int ancienne = getChunkSize();
+        int nouvelle = Math.min(borner(taille), plafond);
+        if (nouvelle == ancienne) {
+            return;
+        }
+        setChunkSize(nouvelle);
+        decisions.addLast("chunk " + numeroChunk + " : " + ancienne + " -> " + nouvelle + " (" + raison + ", "
+                + duree / 1_000_000 + " ms, " + ecrits + " ecrits)");
+        while (decisions.size() > DECISIONS_CONSERVEES) {
+            decisions.removeFirst();
+        }
+        ExecutionContext contexte = stepExecution.getExecutionContext();
+        contexte.putInt(CLE_TAILLE, nouvelle);
+        contexte.putString(CLE_DECISIONS, String.join("\n", decisions));
+    }
+
+    private int borner(int taille) {
+        return Math.max(min, Math.min(max, taille));
+    }
+}
@@ -0,0 +1,641 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lecture d'une copybook COBOL et génération de l'{@link EbcdicRecordLayout} correspondant.
+ * <p>
+ * Clauses prises en charge : PIC X / A / 9 / S / V, USAGE DISPLAY, COMP-3 (PACKED-DECIMAL),
+ * COMP (BINARY, COMP-4, COMP-5), OCCURS n (déroulé), OCCURS n TO m DEPENDING ON, REDEFINES
+ * et FILLER. Un seul OCCURS DEPENDING ON est accepté, en fin d'enregistrement, sans OCCURS
+ * imbriqué. Le format fixe (colonnes 1-6 de séquence, 7 d'indicateur, 73+ d'identification,
+ * commentaires '*' et '/') ou libre est reconnu une fois pour toute la copybook.
+ * <p>
+ * L'analyse peut être mise en cache ({@link #charger(Path, Options, Path)}) : la disposition
+ * est rangée sous l'empreinte SHA-256 de la copybook et des options, dans un fichier texte
+ * (un champ par ligne) relu au travers du {@link EbcdicRecordLayout.Builder}. Aucune
+ * désérialisation Java : un fichier déposé dans le répertoire ne peut produire qu'une
+ * disposition, ou être ignoré s'il est mal formé.
+ */
+public final class CopybookParser {
+
+    private static final Logger log = LoggerFactory.getLogger(CopybookParser.class);
+
+    private static final Pattern NIVEAU = Pattern.compile("\\d{1,2}");
+    private static final Pattern REPETITION = Pattern.compile("([XA9])\\((\\d+)\\)");
+    // Première ligne du cache : à changer si le format des lignes évolue
+    private static final String VERSION_CACHE = "ebcdic-layout\t1";
+
+    private CopybookParser() {
+    }
+
+    /** Options de sortie : ordre des champs, largeurs et champs non masqués. */
+    public static final class Options {
+        private final List<String> ordreSortie = new ArrayList<>();
+        private final Map<String, Integer> largeurs = new HashMap<>();
+        private final Set<String> bruts = new LinkedHashSet<>();
+        private boolean compteurInvalideAZero;
+        private boolean controleLongueur = true;
+
+        /** Champs écrits, dans cet ordre ; les autres sont ignorés. Sans ordre : tous, dans l'ordre de déclaration. */
+        public Options ordreSortie(String... noms) {
+            for (String nom : noms) {
+                ordreSortie.add(normaliser(nom));
+            }
+            return this;
+        }
+
+        /** Largeur de sortie d'un champ numérique (par défaut : nombre de chiffres de la PIC). */
+        public Options largeur(String nom, int largeur) {
+            largeurs.put(normaliser(nom), largeur);
+            return this;
+        }
+
+        /** Largeurs au format {@code NOM=largeur}, tel que lu en configuration. */
+        public Options largeurs(String... definitions) {
+            for (String definition : definitions) {
+                String[] parties = definition.split("=");
+                if (parties.length != 2) {
+                    throw new IllegalArgumentException("Largeur invalide : " + definition);
+                }
+                largeur(parties[0], Integer.parseInt(parties[1].trim()));
+            }
+            return this;
+        }
+
+        /** Champs texte écrits sans masquage des caractères non imprimables. */
+        public Options bruts(String... noms) {
+            for (String nom : noms) {
+                bruts.add(normaliser(nom));
+            }
+            return this;
+        }
+
+        public Options compteurInvalideAZero() {
+            this.compteurInvalideAZero = true;
+            return this;
+        }
+
+        public Options sansControleLongueur() {
+            this.controleLongueur = false;
+            return this;
+        }
+
+        // Représentation stable, intégrée à la clé du cache
+        String cle() {
+            return "ordre=" + ordreSortie + ";largeurs=" + new TreeMap<>(largeurs)
+                    + ";bruts=" + bruts + ";compteurInvalideAZero=" + compteurInvalideAZero
+                    + ";controleLongueur=" + controleLongueur;
+        }
+    }
+
+    /**
+     * Retourne la disposition de la copybook, depuis le cache si elle y est déjà.
+     * Un cache illisible est ignoré et réécrit. Le répertoire est créé accessible à son
+     * seul propriétaire.
+     */
+    public static EbcdicRecordLayout charger(Path copybook, Options options, Path repertoireCache) throws IOException {
+        String source = new String(Files.readAllBytes(copybook), StandardCharsets.UTF_8);
+        Path cache = repertoireCache.resolve(empreinte(source, options) + ".layout");
+
+        if (Files.isRegularFile(cache)) {
+            try {
+                return lireCache(Files.readAllLines(cache, StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cache de disposition illisible, nouvelle analyse : {} ({})", cache, e.toString());
+            }
+        }
+
+        EbcdicRecordLayout layout = parser(source, options);
+        creerRepertoirePrive(repertoireCache);
+        Path temporaire = Files.createTempFile(repertoireCache, "layout", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaire, StandardCharsets.UTF_8)) {
+            ecrireCache(layout, writer);
+        }
+        // Écriture atomique : un job concurrent ne lit jamais un cache partiel
+        Files.move(temporaire, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return layout;
+    }
+
+    private static void creerRepertoirePrive(Path repertoire) throws IOException {
+        if (Files.isDirectory(repertoire)) {
+            return;
+        }
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(repertoire,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(repertoire);
+        }
+    }
+
+    // ---- Cache : une ligne par propriété ou par champ, valeurs séparées par des tabulations ----
+
+    static void ecrireCache(EbcdicRecordLayout layout, BufferedWriter writer) throws IOException {
+        writer.write(VERSION_CACHE);
+        writer.newLine();
+        writer.write("options\t" + layout.getProfil() + "\t" + layout.getPageCode() + "\t" + layout.getSortie()
+                + "\t" + layout.isCompteurInvalideAZero() + "\t" + layout.isControleLongueur());
+        writer.newLine();
+        for (EbcdicRecordLayout.Champ champ : layout.getChamps()) {
+            ecrireChamp("champ", champ, writer);
+        }
+        if (layout.getCompteur() != null) {
+            ecrireChamp("compteur", layout.getCompteur(), writer);
+            writer.write("groupe\t" + layout.getGroupeBase() + "\t" + layout.getGroupePas());
+            writer.newLine();
+            for (EbcdicRecordLayout.Champ champ : layout.getChampsGroupe()) {
+                ecrireChamp("champ", champ, writer);
+            }
+        }
+    }
+
+    private static void ecrireChamp(String genre, EbcdicRecordLayout.Champ champ, BufferedWriter writer) throws IOException {
+        writer.write(genre + "\t" + champ.getNom() + "\t" + champ.getOffset() + "\t" + champ.getLongueur()
+                + "\t" + champ.getType() + "\t" + champ.isImprimable() + "\t" + champ.getLargeurPad());
+        writer.newLine();
+    }
+
+    /** Relit un cache écrit par {@link #ecrireCache} ; toute ligne inattendue le rend illisible. */
+    static EbcdicRecordLayout lireCache(List<String> lignes) {
+        if (lignes.isEmpty() || !lignes.get(0).equals(VERSION_CACHE)) {
+            throw new IllegalArgumentException("Version de cache inconnue");
+        }
+        EbcdicRecordLayout.Builder builder = EbcdicRecordLayout.builder();
+        for (String ligne : lignes.subList(1, lignes.size())) {
+            String[] valeurs = ligne.split("\t", -1);
+            switch (valeurs[0]) {
+                case "options":
+                    attendre(valeurs, 6);
+                    builder.profil(EbcdicCodec.Profil.valueOf(valeurs[1]))
+                            .pageCode(EbcdicCodec.PageCode.valueOf(valeurs[2]))
+                            .sortie(EbcdicCodec.Sortie.valueOf(valeurs[3]));
+                    if (booleen(valeurs[4])) {
+                        builder.compteurInvalideAZero();
+                    }
+                    if (!booleen(valeurs[5])) {
+                        builder.sansControleLongueur();
+                    }
+                    break;
+                case "champ":
+                    builder.champ(lireChamp(valeurs));
+                    break;
+                case "compteur":
+                    builder.compteur(lireChamp(valeurs));
+                    break;
+                case "groupe":
+                    attendre(valeurs, 3);
+                    builder.groupe(Integer.parseInt(valeurs[1]), Integer.parseInt(valeurs[2]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Ligne de cache inattendue : " + ligne);
+            }
+        }
+        return builder.build();
+    }
+
+    private static EbcdicRecordLayout.Champ lireChamp(String[] valeurs) {
+        attendre(valeurs, 7);
+        return new EbcdicRecordLayout.Champ(valeurs[1], Integer.parseInt(valeurs[2]), Integer.parseInt(valeurs[3]),
+                EbcdicRecordLayout.TypeChamp.valueOf(valeurs[4]), booleen(valeurs[5]), Integer.parseInt(valeurs[6]));
+    }
+
+    private static void attendre(String[] valeurs, int nombre) {
+        if (valeurs.length != nombre) {
+            throw new IllegalArgumentException("Ligne de cache incomplète : " + String.join("\t", valeurs));
+        }
+    }
+
+    private static boolean booleen(String valeur) {
+        if (!valeur.equals("true") && !valeur.equals("false")) {
+            throw new IllegalArgumentException("Booléen attendu : " + valeur);
+        }
+        return valeur.equals("true");
+    }
+
+    public static EbcdicRecordLayout parser(String copybook) {
+        return parser(copybook, new Options());
+    }
+
+    public static EbcdicRecordLayout parser(String copybook, Options options) {
+        List<Element> racines = new ArrayList<>();
+        List<Element> pile = new ArrayList<>();
+        for (String instruction : instructions(copybook)) {
+            Element element = analyser(instruction);
+            if (element.niveau == 66 || element.niveau == 77 || element.niveau == 88) {
+                // RENAMES, niveaux indépendants et noms de condition : sans effet sur la disposition
+                continue;
+            }
+            while (!pile.isEmpty() && pile.get(pile.size() - 1).niveau >= element.niveau) {
+                pile.remove(pile.size() - 1);
+            }
+            if (pile.isEmpty()) {
+                racines.add(element);
+            } else {
+                pile.get(pile.size() - 1).enfants.add(element);
+            }
+            pile.add(element);
+        }
+        if (racines.isEmpty()) {
+            throw new IllegalArgumentException("Copybook vide");
+        }
+
+        Resolution resolution = new Resolution();
+        for (Element racine : racines) {
+            // Plusieurs 01 décrivent le même enregistrement (REDEFINES implicite)
+            resolution.placer(racine, 0, "", false);
+        }
+        return resolution.construire(options);
+    }
+
+    // ---- Analyse lexicale ----
+
+    private static List<String> instructions(String copybook) {
+        String[] lignes = copybook.split("\r?\n");
+        // Format décidé pour toute la copybook : une ligne libre indentée ("    05 CHAMP ...")
+        // ne doit pas être lue comme une ligne fixe et perdre son numéro de niveau
+        boolean formatFixe = formatFixe(lignes);
+        StringBuilder code = new StringBuilder();
+        for (String ligne : lignes) {
+            String contenu = ligne;
+            if (formatFixe) {
+                if (ligne.length() < 7) {
+                    // Numéro de séquence seul
+                    continue;
+                }
+                char indicateur = ligne.charAt(6);
+                if (indicateur == '*' || indicateur == '/') {
+                    continue;
+                }
+                contenu = ligne.substring(7, Math.min(ligne.length(), 72));
+            } else if (ligne.trim().startsWith("*")) {
+                continue;
+            }
+            code.append(contenu).append(' ');
+        }
+
+        List<String> resultat = new ArrayList<>();
+        // Le point termine une instruction s'il est suivi d'un blanc (pas celui d'une PIC 9.99)
+        for (String instruction : code.toString().split("\\.(\\s|$)")) {
+            if (!instruction.trim().isEmpty()) {
+                resultat.add(instruction.trim());
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Format fixe si chaque ligne non blanche a une zone de séquence (colonnes 1-6) blanche
+     * ou entièrement numérique, et un indicateur (colonne 7) blanc, '*' ou '/'.
+     */
+    private static boolean formatFixe(String[] lignes) {
+        boolean code = false;
+        for (String ligne : lignes) {
+            if (ligne.trim().isEmpty()) {
+                continue;
+            }
+            code = true;
+            String sequence = ligne.substring(0, Math.min(6, ligne.length()));
+            if (!sequence.trim().isEmpty() && !sequence.chars().allMatch(Character::isDigit)) {
+                return false;
+            }
+            if (ligne.length() > 6 && " */".indexOf(ligne.charAt(6)) < 0) {
+                return false;
+            }
+        }
+        return code;
+    }
+
+    private static Element analyser(String instruction) {
+        String[] mots = instruction.toUpperCase(Locale.ROOT).split("\\s+");
+        if (!NIVEAU.matcher(mots[0]).matches()) {
+            throw new IllegalArgumentException("Numéro de niveau attendu : " + instruction);
+        }
+        Element element = new Element(Integer.parseInt(mots[0]));
+        int i = 1;
+        if (i < mots.length && !estMotCle(mots[i])) {
+            element.nom = mots[i++];
+        }
+        while (i < mots.length) {
+            String mot = mots[i++];
+            switch (mot) {
+                case "PIC":
+                case "PICTURE":
+                    if (i < mots.length && mots[i].equals("IS")) i++;
+                    element.pic = mots[i++];
+                    break;
+                case "USAGE":
+                    if (i < mots.length && mots[i].equals("IS")) i++;
+                    break;
+                case "COMP-3":
+                case "COMPUTATIONAL-3":
+                case "PACKED-DECIMAL":
+                    element.usage = EbcdicRecordLayout.TypeChamp.COMP3;
+                    break;
+                case "COMP":
+                case "COMPUTATIONAL":
+                case "COMP-4":
+                case "COMPUTATIONAL-4":
+                case "COMP-5":
+                case "COMPUTATIONAL-5":
+                case "BINARY":
+                    element.usage = EbcdicRecordLayout.TypeChamp.BINAIRE;
+                    break;
+                case "DISPLAY":
+                    element.usage = EbcdicRecordLayout.TypeChamp.DISPLAY;
+                    break;
+                case "REDEFINES":
+                    element.redefinit = mots[i++];
+                    break;
+                case "OCCURS":
+                    element.occurrencesMax = Integer.parseInt(mots[i++]);
+                    if (i < mots.length && mots[i].equals("TO")) {
+                        element.occurrencesMax = Integer.parseInt(mots[i + 1]);
+                        i += 2;
+                    }
+                    break;
+                case "DEPENDING":
+                    if (i < mots.length && mots[i].equals("ON")) i++;
+                    element.dependDe = mots[i++];
+                    break;
+                case "VALUE":
+                case "VALUES":
+                    // La valeur initiale n'a pas d'incidence sur la disposition
+                    i = mots.length;
+                    break;
+                default:
+                    // TIMES, IS, SIGN, SYNC, JUSTIFIED, INDEXED BY... : ignorés
+                    break;
+            }
+        }
+        if (element.nom == null) {
+            element.nom = "FILLER";
+        }
+        return element;
+    }
+
+    private static boolean estMotCle(String mot) {
+        switch (mot) {
+            case "PIC": case "PICTURE": case "USAGE": case "REDEFINES": case "OCCURS":
+            case "COMP": case "COMP-3": case "BINARY": case "DISPLAY": case "PACKED-DECIMAL":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ---- Résolution des positions ----
+
+    private static final class Element {
+        final int niveau;
+        final List<Element> enfants = new ArrayList<>();
+        String nom;
+        String pic;
+        EbcdicRecordLayout.TypeChamp usage = EbcdicRecordLayout.TypeChamp.DISPLAY;
+        String redefinit;
+        int occurrencesMax = 1;
+        String dependDe;
+        int offset;
+        int taille;
+
+        Element(int niveau) {
+            this.niveau = niveau;
+        }
+    }
+
+    private static final class Resolution {
+        private final Map<String, Element> parNom = new HashMap<>();
+        private final List<EbcdicRecordLayout.Champ> fixes = new ArrayList<>();
+        private final List<EbcdicRecordLayout.Champ> groupe = new ArrayList<>();
+        private final List<String> ordreDeclaration = new ArrayList<>();
+        private Element occursDependant;
+
+        /** Place l'élément à {@code offset} et retourne sa taille (une occurrence). */
+        int placer(Element element, int offset, String suffixe, boolean dansGroupe) {
+            element.offset = offset;
+            parNom.putIfAbsent(element.nom, element);
+
+            if (element.dependDe != null) {
+                if (occursDependant != null || dansGroupe) {
+                    throw new IllegalArgumentException("Un seul OCCURS DEPENDING ON, non imbriqué, est pris en charge");
+                }
+                occursDependant = element;
+                int pas = tailleOccurrence(element, offset, suffixe, true);
+                element.taille = pas * element.occurrencesMax;
+                return element.taille;
+            }
+
+            int pas = 0;
+            for (int n = 0; n < element.occurrencesMax; n++) {
+                String suffixeOccurrence = element.occurrencesMax > 1 ? suffixe + "(" + (n + 1) + ")" : suffixe;
+                pas = tailleOccurrence(element, offset + n * pas, suffixeOccurrence, dansGroupe);
+            }
+            element.taille = pas * element.occurrencesMax;
+            return element.taille;
+        }
+
+        private int tailleOccurrence(Element element, int offset, String suffixe, boolean dansGroupe) {
+            if (element.enfants.isEmpty()) {
+                if (element.pic == null) {
+                    throw new IllegalArgumentException("PIC manquante pour " + element.nom);
+                }
+                Pic pic = Pic.analyser(element.pic);
+                int longueur = pic.longueur(element.usage);
+                if (!element.nom.equals("FILLER")) {
+                    ajouter(element, pic, offset, longueur, suffixe, dansGroupe);
+                }
+                return longueur;
+            }
+            // REDEFINES vise un champ de même niveau, dans la même occurrence
+            Map<String, Integer> debuts = new HashMap<>();
+            int position = offset;
+            int fin = offset;
+            for (Element enfant : element.enfants) {
+                if (occursDependant != null && enfant.redefinit == null && !dansGroupe) {
+                    throw new IllegalArgumentException("Champ après l'OCCURS DEPENDING ON : " + enfant.nom);
+                }
+                int debutEnfant = position;
+                if (enfant.redefinit != null) {
+                    Integer redefini = debuts.get(enfant.redefinit);
+                    if (redefini == null) {
+                        throw new IllegalArgumentException("REDEFINES d'un champ inconnu : " + enfant.redefinit);
+                    }
+                    debutEnfant = redefini;
+                }
+                debuts.put(enfant.nom, debutEnfant);
+                int taille = placer(enfant, debutEnfant, suffixe, dansGroupe);
+                if (enfant.redefinit == null) {
+                    position = debutEnfant + taille;
+                }
+                fin = Math.max(fin, debutEnfant + taille);
+            }
+            return fin - offset;
+        }
+
+        private void ajouter(Element element, Pic pic, int offset, int longueur, String suffixe, boolean dansGroupe) {
+            String nom = element.nom + suffixe;
+            EbcdicRecordLayout.TypeChamp type = pic.numerique ? element.usage : EbcdicRecordLayout.TypeChamp.DISPLAY;
+            EbcdicRecordLayout.Champ champ;
+            if (dansGroupe) {
+                champ = new EbcdicRecordLayout.Champ(nom, offset - occursDependant.offset, longueur, type, true, pic.chiffres);
+                groupe.add(champ);
+            } else {
+                champ = new EbcdicRecordLayout.Champ(nom, offset, longueur, type, true, pic.chiffres);
+                fixes.add(champ);
+            }
+            ordreDeclaration.add(nom);
+        }
+
+        EbcdicRecordLayout construire(Options options) {
+            EbcdicRecordLayout.Builder builder = EbcdicRecordLayout.builder();
+            for (EbcdicRecordLayout.Champ champ : ordonner(fixes, options)) {
+                builder.champ(appliquer(champ, options));
+            }
+            if (occursDependant != null) {
+                Element compteur = parNom.get(occursDependant.dependDe);
+                if (compteur == null || compteur.pic == null) {
+                    throw new IllegalArgumentException("Compteur DEPENDING ON introuvable : " + occursDependant.dependDe);
+                }
+                Pic pic = Pic.analyser(compteur.pic);
+                builder.compteur(new EbcdicRecordLayout.Champ(compteur.nom, compteur.offset,
+                        pic.longueur(compteur.usage), compteur.usage, false, pic.chiffres));
+                builder.groupe(occursDependant.offset, occursDependant.taille / occursDependant.occurrencesMax);
+                for (EbcdicRecordLayout.Champ champ : ordonner(groupe, options)) {
+                    builder.champ(appliquer(champ, options));
+                }
+            }
+            if (options.compteurInvalideAZero) {
+                builder.compteurInvalideAZero();
+            }
+            if (!options.controleLongueur) {
+                builder.sansControleLongueur();
+            }
+            return builder.build();
+        }
+
+        private static List<EbcdicRecordLayout.Champ> ordonner(List<EbcdicRecordLayout.Champ> champs, Options options) {
+            if (options.ordreSortie.isEmpty()) {
+                return champs;
+            }
+            List<EbcdicRecordLayout.Champ> resultat = new ArrayList<>();
+            for (String nom : options.ordreSortie) {
+                for (EbcdicRecordLayout.Champ champ : champs) {
+                    if (champ.getNom().equals(nom)) {
+                        resultat.add(champ);
+                    }
+                }
+            }
+            return resultat;
+        }
+
+        private static EbcdicRecordLayout.Champ appliquer(EbcdicRecordLayout.Champ champ, Options options) {
+            Integer largeur = options.largeurs.get(champ.getNom());
+            boolean imprimable = !options.bruts.contains(champ.getNom());
+            return new EbcdicRecordLayout.Champ(champ.getNom(), champ.getOffset(), champ.getLongueur(), champ.getType(),
+                    champ.getType() == EbcdicRecordLayout.TypeChamp.DISPLAY && imprimable,
+                    largeur != null ? largeur : champ.getLargeurPad());
+        }
+    }
+
+    /** PIC analysée : nombre de caractères (X/A) ou de chiffres (9). */
+    private static final class Pic {
+        final boolean numerique;
+        final int caracteres;
+        final int chiffres;
+
+        private Pic(boolean numerique, int caracteres, int chiffres) {
+            this.numerique = numerique;
+            this.caracteres = caracteres;
+            this.chiffres = chiffres;
+        }
+
+        static Pic analyser(String pic) {
+            Matcher repetitions = REPETITION.matcher(pic);
+            StringBuffer developpee = new StringBuffer();
+            while (repetitions.find()) {
+                char[] motif = new char[Integer.parseInt(repetitions.group(2))];
+                Arrays.fill(motif, repetitions.group(1).charAt(0));
+                repetitions.appendReplacement(developpee, new String(motif));
+            }
+            repetitions.appendTail(developpee);
+
+            int caracteres = 0;
+            int chiffres = 0;
+            boolean alphanumerique = false;
+            for (char c : developpee.toString().toCharArray()) {
+                switch (c) {
+                    case 'X':
+                    case 'A':
+                        alphanumerique = true;
+                        caracteres++;
+                        break;
+                    case '9':
+                        chiffres++;
+                        caracteres++;
+                        break;
+                    case 'S':
+                    case 'V':
+                        // Signe et virgule implicites : aucun octet en COMP-3 / binaire
+                        break;
+                    default:
+                        throw new IllegalArgumentException("PIC non prise en charge : " + pic);
+                }
+            }
+            return new Pic(!alphanumerique, caracteres, chiffres);
+        }
+
+        int longueur(EbcdicRecordLayout.TypeChamp usage) {
+            if (!numerique) {
+                return caracteres;
+            }
+            switch (usage) {
+                case COMP3:
+                    return chiffres / 2 + 1;
+                case BINAIRE:
+                    return chiffres <= 4 ? 2 : chiffres <= 9 ? 4 : 8;
+                default:
+                    return caracteres;
+            }
+        }
+    }
+
+    private static String normaliser(String nom) {
+        return nom.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String empreinte(String source, Options options) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(source.getBytes(StandardCharsets.UTF_8));
+            sha.update(options.cle().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : sha.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
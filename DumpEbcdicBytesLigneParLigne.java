@@ -1,44 +1,270 @@
 import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
+/**
+ * Dump hexadécimal d'un fichier ruban SIC, enregistrement par enregistrement.
+ * <p>
+ * Le fichier est découpé comme par plcConvert (en-tête, corps de 1390 octets au moins,
+ * pied de page, puis octets restants éventuels) : chaque bloc correspond à un vrai
+ * enregistrement, quelle que soit sa longueur. Une plage d'enregistrements
+ * ({@code --debut}, {@code --nombre}) est atteinte par l'index du fichier
+ * ({@link EbcdicRecordIndex}) s'il existe ou si {@code --index} le demande, sinon par
+ * découpage sans décodage depuis le début. Avec {@code --champs}, chaque ligne est suivie
+ * du texte décodé et des champs de la disposition qui y commencent, et chaque
+ * enregistrement du corps de la valeur décodée de ses champs.
+ * <p>
+ * Les octets sont écrits par une table hexadécimale précalculée dans un tampon de ligne,
+ * puis par un Writer à gros tampon.
+ */
 public class DumpEbcdicBytesLigneParLigne {
 
+    private static final int OCTETS_PAR_LIGNE = 16;
+    private static final int TAMPON_SORTIE = 1 << 20;
+    private static final int APERCU_TEXTE = 80;
+    private static final char[] CHIFFRES = "0123456789ABCDEF".toCharArray();
+    // Deux caractères hexadécimaux par valeur d'octet
+    private static final char[] HEXA = new char[512];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEXA[2 * i] = CHIFFRES[i >>> 4];
+            HEXA[2 * i + 1] = CHIFFRES[i & 0xF];
+        }
+    }
+
+    /** Options de la ligne de commande. */
+    static final class Options {
+        int debut;
+        int nombre = Integer.MAX_VALUE;
+        boolean champs;
+        int pasIndex;
+        EbcdicOutils.ModeLecture mode = EbcdicOutils.ModeLecture.FLUX;
+        EbcdicRecordLayout layout = EbcdicRecordLayout.RUBAN_SIC;
+    }
+
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.err.println("Usage: java DumpEbcdicBytesLigneParLigne <fichier_entree> <fichier_sortie>");
+            System.err.println("Usage: java DumpEbcdicBytesLigneParLigne <fichier_entree> <fichier_sortie>"
+                    + " [--debut N] [--nombre N] [--champs] [--index PAS] [--mode FLUX|PROJECTION] [--page-code CP037]");
             return;
         }
 
         String inputPath = args[0];
         String outputPath = args[1];
-        int lineLength = 1390; // ⚠️ adapte cette taille si nécessaire
-
-        try (
-            BufferedInputStream bis = new BufferedInputStream(new FileInputStream(inputPath));
-            BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputPath))
-        ) {
-            byte[] buffer = new byte[lineLength];
-            int lineNumber = 1;
-            int bytesRead;
-
-            while ((bytesRead = bis.read(buffer)) != -1) {
-                writer.write("===== Ligne " + lineNumber + " =====\n");
-
-                StringBuilder hexLine = new StringBuilder();
-                for (int i = 0; i < bytesRead; i++) {
-                    hexLine.append(String.format("%02X ", buffer[i]));
+        Options options = new Options();
+        EbcdicCodec.PageCode pageCode = EbcdicCodec.PageCode.CP037;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--debut": options.debut = Integer.parseInt(args[++i]); break;
+                case "--nombre": options.nombre = Integer.parseInt(args[++i]); break;
+                case "--champs": options.champs = true; break;
+                case "--index": options.pasIndex = Integer.parseInt(args[++i]); break;
+                case "--mode": options.mode = EbcdicOutils.ModeLecture.valueOf(args[++i]); break;
+                case "--page-code": pageCode = EbcdicCodec.PageCode.valueOf(args[++i]); break;
+                default:
+                    System.err.println("Option inconnue : " + args[i]);
+                    return;
+            }
+        }
+        options.layout = options.layout.avec(pageCode, EbcdicCodec.Sortie.ASCII);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(outputPath)), StandardCharsets.UTF_8), TAMPON_SORTIE)) {
+            int ecrits = dump(inputPath, writer, options);
+            System.out.println("✅ Dump terminé : " + outputPath + " (" + ecrits + " enregistrements)");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Écrit le dump des enregistrements [debut, debut + nombre) de {@code fichier}.
+     *
+     * @return le nombre d'enregistrements écrits
+     */
+    static int dump(String fichier, Writer sortie, Options options) throws IOException {
+        EbcdicRecordIndex index = options.pasIndex > 0
+                ? EbcdicRecordIndex.charger(fichier, options.mode, options.pasIndex)
+                : EbcdicRecordIndex.lire(Paths.get(fichier));
+        int numero = 0;
+        boolean piedLu = false;
+        EbcdicFramer framer;
+        if (index != null && options.debut > 0) {
+            numero = Math.min(options.debut, index.nombreEnregistrements());
+            piedLu = numero > index.nombreCorps() + 1;
+            framer = index.ouvrirA(fichier, options.mode, numero);
+        } else {
+            framer = EbcdicOutils.ouvrirFramer(fichier, options.mode);
+        }
+
+        Dump dump = new Dump(sortie, options.layout, options.champs);
+        int ecrits = 0;
+        try (EbcdicFramer f = framer) {
+            while (ecrits < options.nombre) {
+                // Même enchaînement que plcConvert : en-tête, corps tant qu'il reste 1390 octets, pied de page
+                boolean corps = numero > 0 && !piedLu && f.disponible() >= 1390;
+                if (!f.suivant(corps ? 1390 : 10)) {
+                    break;
+                }
+                String partie = numero == 0 ? "en-tête" : corps ? "corps" : piedLu ? "octets restants" : "pied de page";
+                if (numero > 0 && !corps) {
+                    piedLu = true;
+                }
+                if (numero >= options.debut) {
+                    dump.enregistrement(numero, partie, corps, f);
+                    ecrits++;
                 }
+                numero++;
+            }
+        }
+        return ecrits;
+    }
 
-                writer.write(hexLine.toString().trim());
-                writer.write("\n\n");
+    // Mise en forme d'un enregistrement ; tampons réutilisés d'un enregistrement à l'autre
+    private static final class Dump {
+        private final Writer sortie;
+        private final EbcdicRecordLayout layout;
+        private final boolean champs;
+        private final EbcdicCodec codec;
+        private final EbcdicCodec codecImprimable;
+        private final EbcdicFieldView champ = new EbcdicFieldView();
+        private final char[] ligne = new char[512];
+        private final char[] texte = new char[OCTETS_PAR_LIGNE];
+        private char[] valeur = new char[256];
+        // Champs fixes commençant dans chaque ligne de l'enregistrement courant
+        private final StringBuilder annotations = new StringBuilder();
 
-                lineNumber++;
+        Dump(Writer sortie, EbcdicRecordLayout layout, boolean champs) {
+            this.sortie = sortie;
+            this.layout = layout;
+            this.champs = champs;
+            this.codec = layout.codec(false);
+            this.codecImprimable = layout.codec(true);
+        }
+
+        void enregistrement(int numero, String partie, boolean corps, EbcdicFramer f) throws IOException {
+            ByteBuffer vue = f.vue();
+            int debut = f.debut();
+            int longueur = f.longueur();
+            sortie.write("===== Enregistrement " + numero + " (" + partie + ") : position "
+                    + f.positionEnregistrement() + ", " + longueur + " octets =====\n");
+            int occurrences = corps && champs ? occurrences(vue, debut, longueur) : 0;
+            for (int offset = 0; offset < longueur; offset += OCTETS_PAR_LIGNE) {
+                int n = Math.min(OCTETS_PAR_LIGNE, longueur - offset);
+                int i = 0;
+                // Décalage dans l'enregistrement sur 8 chiffres hexadécimaux
+                for (int decalage = 28; decalage >= 0; decalage -= 4) {
+                    ligne[i++] = CHIFFRES[(offset >>> decalage) & 0xF];
+                }
+                ligne[i++] = ' ';
+                // Dernière ligne complétée par des espaces seulement pour aligner le texte décodé
+                for (int j = 0; j < (champs ? OCTETS_PAR_LIGNE : n); j++) {
+                    ligne[i++] = ' ';
+                    if (j < n) {
+                        int octet = vue.get(debut + offset + j) & 0xFF;
+                        ligne[i++] = HEXA[2 * octet];
+                        ligne[i++] = HEXA[2 * octet + 1];
+                    } else {
+                        ligne[i++] = ' ';
+                        ligne[i++] = ' ';
+                    }
+                }
+                if (champs) {
+                    codec.decode(vue, debut + offset, n, texte, 0);
+                    ligne[i++] = ' ';
+                    ligne[i++] = ' ';
+                    ligne[i++] = '|';
+                    for (int j = 0; j < n; j++) {
+                        char c = texte[j];
+                        ligne[i++] = codec.sortie().imprimable(c) ? c : '.';
+                    }
+                    ligne[i++] = '|';
+                }
+                sortie.write(ligne, 0, i);
+                if (corps && champs) {
+                    annoter(offset, occurrences);
+                }
+                sortie.write('\n');
             }
+            if (corps && champs) {
+                valeurs(vue, debut, longueur, occurrences);
+            }
+            sortie.write('\n');
+        }
 
-            System.out.println("✅ Dump terminé : " + outputPath);
-        } catch (IOException e) {
-            e.printStackTrace();
+        private int occurrences(ByteBuffer vue, int debut, int longueur) {
+            try {
+                return layout.plan().occurrences(vue, debut, longueur, champ);
+            } catch (NumberFormatException e) {
+                // Compteur invalide : le dump montre justement l'enregistrement fautif
+                return 0;
+            }
+        }
+
+        // Champs fixes et débuts d'occurrence situés dans la ligne [offset, offset + 16)
+        private void annoter(int offset, int occurrences) throws IOException {
+            annotations.setLength(0);
+            for (EbcdicRecordLayout.Champ c : layout.getChamps()) {
+                if (c.getOffset() >= offset && c.getOffset() < offset + OCTETS_PAR_LIGNE) {
+                    annotations.append(' ').append(c.getNom()).append('@').append(c.getOffset());
+                }
+            }
+            for (int n = 0; n < occurrences; n++) {
+                int base = layout.getGroupeBase() + n * layout.getGroupePas();
+                if (base >= offset && base < offset + OCTETS_PAR_LIGNE) {
+                    annotations.append(" occurrence[").append(n).append("]@").append(base);
+                }
+            }
+            if (annotations.length() > 0) {
+                sortie.write("  <");
+                sortie.append(annotations);
+            }
+        }
+
+        private void valeurs(ByteBuffer vue, int debut, int longueur, int occurrences) throws IOException {
+            for (EbcdicRecordLayout.Champ c : layout.getChamps()) {
+                valeur(c.getNom(), c, c.getOffset(), vue, debut, longueur);
+            }
+            for (int n = 0; n < occurrences; n++) {
+                int base = layout.getGroupeBase() + n * layout.getGroupePas();
+                for (EbcdicRecordLayout.Champ c : layout.getChampsGroupe()) {
+                    valeur(c.getNom() + "[" + n + "]", c, base + c.getOffset(), vue, debut, longueur);
+                }
+            }
+        }
+
+        private void valeur(String nom, EbcdicRecordLayout.Champ c, int offset,
+                            ByteBuffer vue, int debut, int longueur) throws IOException {
+            champ.sur(vue, debut, longueur, offset, c.getLongueur());
+            sortie.write("  " + nom + " @" + offset + "+" + c.getLongueur() + " " + c.getType() + " = ");
+            switch (c.getType()) {
+                case DISPLAY:
+                    if (valeur.length < c.getLongueur()) {
+                        valeur = new char[c.getLongueur()];
+                    }
+                    int n = champ.texte(codecImprimable, valeur, 0);
+                    sortie.write('"');
+                    sortie.write(valeur, 0, Math.min(n, APERCU_TEXTE));
+                    sortie.write(n > APERCU_TEXTE ? "\"… (" + n + " caractères)\n" : "\"\n");
+                    break;
+                case COMP3:
+                    if (c.getLongueur() > 9) {
+                        BigDecimal grand = champ.decimal(0);
+                        sortie.write((grand != null ? grand.toPlainString() : "vide ou invalide") + "\n");
+                        break;
+                    }
+                    long packed = champ.packed();
+                    sortie.write(packed == PackedDecimal.VIDE ? "vide (0xFF)\n"
+                            : packed == PackedDecimal.INVALIDE ? "invalide\n" : packed + "\n");
+                    break;
+                default:
+                    sortie.write(champ.binaire() + "\n");
+                    break;
+            }
         }
     }
 
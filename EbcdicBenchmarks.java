@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks JMH des primitives de conversion EBCDIC et de la conversion d'un fichier complet.
+ * <p>
+ * Les enregistrements sont produits par {@link EbcdicSicGenerator} selon la disposition
+ * {@link EbcdicRecordLayout#RUBAN_SIC} : nombre d'occurrences du groupe répété, part d'octets
+ * non imprimables dans les champs texte et champs COMP-3 entièrement à 0xFF sont paramétrables. Le compteur {@code octets} donne le
+ * débit en octets EBCDIC traités par seconde. À lancer avec le profileur GC pour le taux
+ * d'allocation :
+ * <pre>
+ * java -jar benchmarks.jar EbcdicBenchmarks -prof gc -rf json
+ * </pre>
+ * Toute modification d'un convertisseur se compare à ces mesures avant d'être fusionnée.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class EbcdicBenchmarks {
+
+    /** Jeu d'enregistrements parcouru en boucle, pour ne pas mesurer toujours le même. */
+    @State(Scope.Thread)
+    public static class Enregistrements {
+
+        private static final int NOMBRE = 256;
+
+        @Param({"0", "12", "40"})
+        public int occurrences;
+
+        @Param({"0", "0.05", "0.5"})
+        public double partNonImprimable;
+
+        @Param({"false", "true"})
+        public boolean packedFF;
+
+        byte[][] corps;
+        ByteBuffer[] vues;
+        byte[][] textes;
+        byte[][] packeds;
+        String[] chiffres;
+        SicRecordConverter convertisseur;
+        private int index;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            EbcdicSicGenerator generateur = new EbcdicSicGenerator(42)
+                    .occurrences(occurrences)
+                    .partNonImprimable(partNonImprimable)
+                    .partPackedFF(packedFF ? 1 : 0);
+            corps = new byte[NOMBRE][];
+            vues = new ByteBuffer[NOMBRE];
+            textes = new byte[NOMBRE][];
+            packeds = new byte[NOMBRE][];
+            chiffres = new String[NOMBRE];
+            for (int i = 0; i < NOMBRE; i++) {
+                corps[i] = generateur.enregistrement();
+                vues[i] = ByteBuffer.wrap(corps[i]);
+                textes[i] = Arrays.copyOfRange(corps[i], 0, 233);
+                packeds[i] = Arrays.copyOfRange(corps[i], 1398, 1401);
+                String valeur = EbcdicOutils.conversionPackedToAscii(packeds[i], 0);
+                chiffres[i] = valeur != null ? valeur : "";
+            }
+            convertisseur = new SicRecordConverter();
+        }
+
+        int suivant() {
+            index = (index + 1) & (NOMBRE - 1);
+            return index;
+        }
+    }
+
+    /** Octets EBCDIC traités : rapporté par JMH en octets par seconde. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Debit {
+        public long octets;
+
+        @Setup(Level.Iteration)
+        public void remettreAZero() {
+            octets = 0;
+        }
+    }
+
+    @Benchmark
+    public String conversionEBCDICToAscii(Enregistrements e, Debit debit) {
+        byte[] texte = e.textes[e.suivant()];
+        debit.octets += texte.length;
+        return EbcdicOutils.conversionEBCDICToAscii(texte, true);
+    }
+
+    @Benchmark
+    public String conversionEBCDIC2AsciiBedel(Enregistrements e, Debit debit) {
+        byte[] texte = e.textes[e.suivant()];
+        debit.octets += texte.length;
+        return ConverterBedel.conversionEBCDIC2Ascii(texte, true);
+    }
+
+    @Benchmark
+    public String conversionPackedToAscii(Enregistrements e, Debit debit) {
+        byte[] packed = e.packeds[e.suivant()];
+        debit.octets += packed.length;
+        return EbcdicOutils.conversionPackedToAscii(packed, 0);
+    }
+
+    @Benchmark
+    public String padLeft(Enregistrements e) {
+        return EbcdicOutils.padLeft(e.chiffres[e.suivant()], 5, '0');
+    }
+
+    @Benchmark
+    public LigneSortie convertirCorps(Enregistrements e, Debit debit) throws IOException {
+        int i = e.suivant();
+        debit.octets += e.corps[i].length;
+        return e.convertisseur.convertirCorps(e.vues[i], 0, e.corps[i].length, true);
+    }
+
+    /** Fichier complet écrit sur disque une fois par essai (réglages par défaut du générateur). */
+    @State(Scope.Benchmark)
+    public static class Fichier {
+
+        @Param({"20000"})
+        public int nombreEnregistrements;
+
+        Path source;
+        Path sortie;
+        long taille;
+
+        @Setup(Level.Trial)
+        public void preparer() throws IOException {
+            source = Files.createTempFile("bench_", ".ebc");
+            sortie = Files.createTempFile("bench_", ".txt");
+            taille = new EbcdicSicGenerator(42).partNonImprimable(0.05).ecrire(source, nombreEnregistrements);
+        }
+
+        @TearDown(Level.Trial)
+        public void nettoyer() throws IOException {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(sortie);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean plcConvert(Fichier f, Debit debit) {
+        debit.octets += f.taille;
+        return EbcdicOutils.plcConvert(f.source.toString(), f.sortie.toString());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean plcConvertProjection(Fichier f, Debit debit) {
+        debit.octets += f.taille;
+        return EbcdicOutils.plcConvert(f.source.toString(), f.sortie.toString(), EbcdicOutils.ModeLecture.PROJECTION);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean conversionParallele(Fichier f, Debit debit) {
+        debit.octets += f.taille;
+        return new EbcdicParallelConverter().convertir(f.source.toString(), f.sortie.toString(), EbcdicOutils.ModeLecture.FLUX);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean conversionPipeline(Fichier f, Debit debit) {
+        debit.octets += f.taille;
+        return new EbcdicPipelineConverter().convertir(f.source.toString(), f.sortie.toString(), EbcdicOutils.ModeLecture.FLUX);
+    }
+}
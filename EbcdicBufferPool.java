@@ -0,0 +1,77 @@
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Tampons d'enregistrement recyclés, pour les lecteurs qui transmettent chaque
+ * enregistrement sous forme de {@code byte[]} (EbcdicRawReader → EbcdicProcessor).
+ * <p>
+ * Chaque thread a sa propre réserve : un tampon pris par le lecteur est rendu une fois le
+ * chunk validé, dans le même thread, sans synchronisation. Une fois la réserve remplie (un
+ * chunk d'enregistrements), plus aucun tampon n'est alloué. Un tampon rendu par un autre
+ * thread rejoint la réserve de ce thread.
+ * <p>
+ * Un tampon déjà présent dans la réserve du thread n'y est pas ajouté une seconde fois :
+ * deux {@link #prendre()} ne peuvent pas retourner le même tableau.
+ */
+public final class EbcdicBufferPool {
+
+    /** Tampons de corps du ruban SIC (1390 octets). */
+    public static final EbcdicBufferPool CORPS = new EbcdicBufferPool(1390, 4096);
+
+    private final int taille;
+    private final int reserveMax;
+    private final ThreadLocal<Reserve> reserves;
+
+    public EbcdicBufferPool(int taille, int reserveMax) {
+        this.taille = taille;
+        this.reserveMax = reserveMax;
+        this.reserves = ThreadLocal.withInitial(() -> new Reserve(Math.min(reserveMax, 1024)));
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    /** Tampon de {@link #taille()} octets, au contenu indéterminé. */
+    public byte[] prendre() {
+        Reserve reserve = reserves.get();
+        byte[] tampon = reserve.tampons.pollLast();
+        if (tampon == null) {
+            return new byte[taille];
+        }
+        reserve.presents.remove(tampon);
+        return tampon;
+    }
+
+    /**
+     * Rend un tampon ; ignoré s'il n'a pas la taille de la réserve, si elle est pleine ou
+     * s'il y a déjà été rendu.
+     */
+    public void rendre(byte[] tampon) {
+        if (tampon == null || tampon.length != taille) {
+            return;
+        }
+        Reserve reserve = reserves.get();
+        // IdentityHashMap : ni hashCode de tableau ni entrée allouée par ajout
+        if (reserve.tampons.size() < reserveMax && reserve.presents.add(tampon)) {
+            reserve.tampons.addLast(tampon);
+        }
+    }
+
+    /** Nombre de tampons disponibles dans la réserve du thread courant. */
+    public int disponibles() {
+        return reserves.get().tampons.size();
+    }
+
+    private static final class Reserve {
+        private final ArrayDeque<byte[]> tampons;
+        private final Set<byte[]> presents;
+
+        Reserve(int capacite) {
+            tampons = new ArrayDeque<>(capacite);
+            presents = Collections.newSetFromMap(new IdentityHashMap<>(capacite));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Chargement en masse du ruban SIC dans une table de travail, basculée à la place de la
+ * table cible en fin de step, à la place de l'insertion ligne à ligne d'un JdbcBatchItemWriter.
+ * <p>
+ * Chaque chunk est écrit par des INSERT multi-lignes ({@code lignesParInsert} lignes par
+ * requête, toutes les requêtes pleines dans un seul executeBatch) dans la transaction du
+ * step : l'intervalle de commit reste la taille de chunk du step ({@code chunk.size}).
+ * <p>
+ * La table de travail est recréée vide, sur le modèle de la table cible, au premier
+ * démarrage du step ; une exécution relancée la conserve et la complète à partir du
+ * dernier commit du lecteur. Une fois le step terminé avec succès, la table cible est
+ * renommée, la table de travail prend son nom et l'ancienne table est supprimée : la
+ * table cible n'est jamais visible à moitié chargée.
+ * <p>
+ * La bascule enchaîne quatre ordres DDL sans transaction commune (le DDL n'est pas
+ * transactionnel partout). Si l'un d'eux échoue, le step passe en échec et la relance
+ * remet les tables en état dans {@link #beforeStep} : table cible restaurée depuis
+ * {@code <table>_ANCIENNE} si elle manque, bascule terminée si la table de travail a déjà
+ * pris le nom de la cible, sinon reprise normale de la table de travail.
+ * <p>
+ * Par défaut la table de travail est créée par {@code CREATE TABLE AS SELECT} : elle n'a
+ * que les colonnes de la cible, sans index, contraintes, valeurs par défaut ni droits, qui
+ * sont donc perdus à chaque bascule. Pour les conserver, fournir le DDL complet par
+ * {@link Builder#creationTableTravail} (et rejouer les GRANT si besoin).
+ * <p>
+ * Le writer est aussi le listener du step qui le prépare et le bascule :
+ * <pre>
+ * .writer(chargement)
+ * .listener(chargement)
+ * </pre>
+ */
+public class EbcdicBulkJdbcWriter<T> implements ItemWriter<T>, StepExecutionListener {
+
+    // Noms de tables insérés tels quels dans le SQL
+    private static final Pattern IDENTIFIANT = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    // Limite de paramètres d'une requête préparée (PostgreSQL, H2)
+    private static final int PARAMETRES_MAX = 65535;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String tableTravail;
+    private final String tableAncienne;
+    private final List<String> colonnes;
+    private final List<Function<? super T, ?>> valeurs;
+    private final int lignesParInsert;
+    private final String creationTableTravail;
+    private final String insertComplet;
+    // Bascule déjà faite par une exécution précédente dont seule la fin a échoué
+    private boolean basculee;
+
+    private EbcdicBulkJdbcWriter(Builder<T> builder) {
+        this.jdbcTemplate = new JdbcTemplate(builder.dataSource);
+        this.table = builder.table;
+        this.tableTravail = builder.tableTravail != null ? builder.tableTravail : table + "_TRAVAIL";
+        this.tableAncienne = table + "_ANCIENNE";
+        this.colonnes = Collections.unmodifiableList(new ArrayList<>(builder.colonnes));
+        this.valeurs = new ArrayList<>(builder.valeurs);
+        this.lignesParInsert = builder.lignesParInsert;
+        this.creationTableTravail = builder.creationTableTravail != null
+                ? builder.creationTableTravail
+                : "CREATE TABLE " + tableTravail + " AS SELECT * FROM " + table + " WHERE 1 = 0";
+        this.insertComplet = insert(lignesParInsert);
+    }
+
+    public static <T> Builder<T> builder(DataSource dataSource, String table) {
+        return new Builder<>(dataSource, table);
+    }
+
+    // Clé propre à la table : plusieurs chargements peuvent partager un step
+    private String cleTablePreparee() {
+        return "ebcdicBulkJdbcWriter." + table + ".tablePreparee";
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext contexte = stepExecution.getExecutionContext();
+        basculee = false;
+        if (!existe(table) && existe(tableAncienne)) {
+            // Bascule interrompue entre les deux RENAME : la table cible est remise en place
+            jdbcTemplate.execute("ALTER TABLE " + tableAncienne + " RENAME TO " + table);
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableAncienne);
+        if (contexte.containsKey(cleTablePreparee())) {
+            // Reprise : lignes déjà commitées conservées dans la table de travail, sauf si
+            // elle a déjà pris le nom de la table cible (échec après le second RENAME)
+            basculee = !existe(tableTravail);
+            return;
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableTravail);
+        jdbcTemplate.execute(creationTableTravail);
+        contexte.putString(cleTablePreparee(), tableTravail);
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        List<? extends T> items = chunk.getItems();
+        int pleines = items.size() / lignesParInsert;
+        if (pleines > 0) {
+            jdbcTemplate.batchUpdate(insertComplet, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    lier(ps, items, i * lignesParInsert, lignesParInsert);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return pleines;
+                }
+            });
+        }
+        int reste = items.size() - pleines * lignesParInsert;
+        if (reste > 0) {
+            jdbcTemplate.update(insert(reste), ps -> lier(ps, items, pleines * lignesParInsert, reste));
+        }
+    }
+
+    /**
+     * Bascule de la table de travail si le step a réussi ; sinon elle reste en place pour la
+     * reprise. Une bascule en erreur fait échouer le step, remis en état à la relance.
+     */
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            return stepExecution.getExitStatus();
+        }
+        if (!basculee) {
+            try {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableAncienne);
+                jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + tableAncienne);
+                jdbcTemplate.execute("ALTER TABLE " + tableTravail + " RENAME TO " + table);
+                jdbcTemplate.execute("DROP TABLE " + tableAncienne);
+            } catch (DataAccessException e) {
+                // Une exception levée ici serait seulement journalisée par Spring Batch et le
+                // step resterait COMPLETED, donc jamais relancé : l'échec est posé explicitement
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.addFailureException(e);
+                return ExitStatus.FAILED.addExitDescription(e);
+            }
+        }
+        basculee = false;
+        stepExecution.getExecutionContext().remove(cleTablePreparee());
+        return stepExecution.getExitStatus();
+    }
+
+    // Recherche par les métadonnées JDBC, dans la casse où la base range les identifiants non quotés
+    private boolean existe(String nom) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connexion -> {
+            DatabaseMetaData metadonnees = connexion.getMetaData();
+            String recherche = metadonnees.storesUpperCaseIdentifiers() ? nom.toUpperCase()
+                    : metadonnees.storesLowerCaseIdentifiers() ? nom.toLowerCase() : nom;
+            // '_' est un joker dans le motif de getTables
+            String echappement = metadonnees.getSearchStringEscape();
+            if (echappement != null && !echappement.isEmpty()) {
+                recherche = recherche.replace("_", echappement + "_");
+            }
+            try (ResultSet tables = metadonnees.getTables(connexion.getCatalog(), connexion.getSchema(), recherche, null)) {
+                return tables.next();
+            }
+        });
+    }
+
+    private void lier(PreparedStatement ps, List<? extends T> items, int debut, int lignes) throws SQLException {
+        int parametre = 1;
+        for (int i = debut; i < debut + lignes; i++) {
+            T item = items.get(i);
+            for (Function<? super T, ?> valeur : valeurs) {
+                ps.setObject(parametre++, valeur.apply(item));
+            }
+        }
+    }
+
+    private String insert(int lignes) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableTravail)
+                .append(" (").append(String.join(", ", colonnes)).append(") VALUES ");
+        String ligne = "(" + String.join(", ", Collections.nCopies(colonnes.size(), "?")) + ")";
+        for (int i = 0; i < lignes; i++) {
+            sql.append(i == 0 ? "" : ", ").append(ligne);
+        }
+        return sql.toString();
+    }
+
+    public static final class Builder<T> {
+        private final DataSource dataSource;
+        private final String table;
+        private final List<String> colonnes = new ArrayList<>();
+        private final List<Function<? super T, ?>> valeurs = new ArrayList<>();
+        private String tableTravail;
+        private String creationTableTravail;
+        private int lignesParInsert = 100;
+
+        private Builder(DataSource dataSource, String table) {
+            this.dataSource = dataSource;
+            this.table = identifiant(table);
+        }
+
+        /** Colonne alimentée par {@code valeur}, passée telle quelle à {@link PreparedStatement#setObject}. */
+        public Builder<T> colonne(String nom, Function<? super T, ?> valeur) {
+            colonnes.add(identifiant(nom));
+            valeurs.add(valeur);
+            return this;
+        }
+
+        /** Table de travail ; {@code <table>_TRAVAIL} par défaut. */
+        public Builder<T> tableTravail(String tableTravail) {
+            this.tableTravail = identifiant(tableTravail);
+            return this;
+        }
+
+        /**
+         * DDL de création de la table de travail, pour conserver index, contraintes et valeurs par
+         * défaut après la bascule ; par défaut une copie vide des colonnes de la table cible
+         * (CREATE TABLE AS SELECT), qui les perd à chaque bascule.
+         */
+        public Builder<T> creationTableTravail(String ddl) {
+            this.creationTableTravail = ddl;
+            return this;
+        }
+
+        /** Lignes par requête INSERT ; 100 par défaut. */
+        public Builder<T> lignesParInsert(int lignesParInsert) {
+            if (lignesParInsert < 1) {
+                throw new IllegalArgumentException("Nombre de lignes par INSERT invalide : " + lignesParInsert);
+            }
+            this.lignesParInsert = lignesParInsert;
+            return this;
+        }
+
+        public EbcdicBulkJdbcWriter<T> build() {
+            if (colonnes.isEmpty()) {
+                throw new IllegalStateException("Aucune colonne à charger dans " + table);
+            }
+            if ((long) lignesParInsert * colonnes.size() > PARAMETRES_MAX) {
+                throw new IllegalStateException("Trop de paramètres par INSERT : " + lignesParInsert
+                        + " lignes × " + colonnes.size() + " colonnes");
+            }
+            return new EbcdicBulkJdbcWriter<>(this);
+        }
+
+        private static String identifiant(String nom) {
+            if (nom == null || !IDENTIFIANT.matcher(nom).matches()) {
+                throw new IllegalArgumentException("Nom de table ou de colonne invalide : " + nom);
+            }
+            return nom;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Point d'entrée unique du décodage EBCDIC → ASCII : une page de code ({@link PageCode}),
+ * un profil de substitutions ({@link Profil}), les caractères conservés ({@link Sortie})
+ * et le masquage éventuel des caractères non imprimables, figés à la construction sur une
+ * {@link EbcdicTable} précalculée.
+ * <p>
+ * Sans état et thread-safe : les instances se partagent et les variantes {@code decode}
+ * vers un tableau n'allouent rien. conversionEBCDICToAscii, ConverterBedel, le plan de
+ * décodage et les lecteurs de batch passent tous par ici.
+ */
+public final class EbcdicCodec {
+
+    /** Variante de substitutions héritée. */
+    public enum Profil {
+        /** Octets de substitution du C# (0x6D, 0xBA, 0x95…), ceux de plcConvert. */
+        CSHARP,
+        /** Octets de substitution de ConverterBedel (0x6F, 0xBA, 0x5F…). */
+        BEDEL
+    }
+
+    /** Page de code EBCDIC du flux source ; toutes sont des permutations de Latin-1. */
+    public enum PageCode {
+        /** États-Unis / Canada, celle de l'historique. */
+        CP037("Cp037"),
+        /** Latin-1 Open Systems (z/OS Unix). */
+        CP1047("Cp1047"),
+        /** International. */
+        CP500("Cp500"),
+        /** France. */
+        CP297("Cp297");
+
+        private final String charset;
+
+        PageCode(String charset) {
+            this.charset = charset;
+        }
+
+        /** Nom du Charset Java, utilisé une seule fois à la construction de la table. */
+        public String charset() {
+            return charset;
+        }
+    }
+
+    /** Caractères conservés en mode imprimable, les autres devenant '?'. */
+    public enum Sortie {
+        /** ASCII imprimable 0x20–0x7E, comme l'historique. */
+        ASCII,
+        /** ASCII imprimable et caractères accentués U+00A0–U+00FF : sortie ISO-8859-1 ou UTF-8. */
+        LATIN1;
+
+        boolean imprimable(char c) {
+            return (c >= 0x20 && c <= 0x7E) || (this == LATIN1 && c >= 0xA0 && c <= 0xFF);
+        }
+    }
+
+    public static final EbcdicCodec CSHARP = new EbcdicCodec(Profil.CSHARP, true);
+    public static final EbcdicCodec CSHARP_BRUT = new EbcdicCodec(Profil.CSHARP, false);
+    public static final EbcdicCodec BEDEL = new EbcdicCodec(Profil.BEDEL, true);
+    public static final EbcdicCodec BEDEL_BRUT = new EbcdicCodec(Profil.BEDEL, false);
+
+    private final PageCode pageCode;
+    private final Profil profil;
+    private final Sortie sortie;
+    private final EbcdicTable table;
+    private final boolean imprimableSeulement;
+
+    private EbcdicCodec(PageCode pageCode, Profil profil, Sortie sortie, boolean imprimableSeulement) {
+        this.pageCode = pageCode;
+        this.profil = profil;
+        this.sortie = sortie;
+        this.table = EbcdicTable.pour(pageCode, profil, sortie);
+        this.imprimableSeulement = imprimableSeulement;
+    }
+
+    private EbcdicCodec(Profil profil, boolean imprimableSeulement) {
+        this(PageCode.CP037, profil, Sortie.ASCII, imprimableSeulement);
+    }
+
+    /** Codec partagé du profil en Cp037 ; {@code imprimableSeulement} remplace tout caractère hors 0x20–0x7E par '?'. */
+    public static EbcdicCodec de(Profil profil, boolean imprimableSeulement) {
+        if (profil == Profil.BEDEL) {
+            return imprimableSeulement ? BEDEL : BEDEL_BRUT;
+        }
+        return imprimableSeulement ? CSHARP : CSHARP_BRUT;
+    }
+
+    /** Codec d'une page de code quelconque ; la table est construite au premier usage puis partagée. */
+    public static EbcdicCodec de(PageCode pageCode, Profil profil, Sortie sortie, boolean imprimableSeulement) {
+        if (pageCode == PageCode.CP037 && sortie == Sortie.ASCII) {
+            return de(profil, imprimableSeulement);
+        }
+        return new EbcdicCodec(pageCode, profil, sortie, imprimableSeulement);
+    }
+
+    public PageCode pageCode() {
+        return pageCode;
+    }
+
+    public Profil profil() {
+        return profil;
+    }
+
+    public Sortie sortie() {
+        return sortie;
+    }
+
+    public boolean imprimableSeulement() {
+        return imprimableSeulement;
+    }
+
+    /**
+     * Décode {@code longueur} octets de {@code src} à partir de {@code offset} dans {@code dst}.
+     *
+     * @return le nombre de caractères écrits
+     */
+    public int decode(byte[] src, int offset, int longueur, char[] dst, int dstOffset) {
+        return table.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+    }
+
+    /** Variante octet (unités ISO-8859-1), voir {@link EbcdicTable#decoder(byte[], int, int, byte[], int, boolean)}. */
+    public int decode(byte[] src, int offset, int longueur, byte[] dst, int dstOffset) {
+        return table.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+    }
+
+    /** Variante lisant directement dans un tampon (projection mémoire comprise), par index absolu. */
+    public int decode(ByteBuffer src, int offset, int longueur, char[] dst, int dstOffset) {
+        return table.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+    }
+
+    public char decode(byte b) {
+        return table.decoder(b, imprimableSeulement);
+    }
+
+    /** Nombre d'octets que {@code decode} remplace par '?' (toujours 0 sans masquage des non imprimables). */
+    public int masques(ByteBuffer src, int offset, int longueur) {
+        return imprimableSeulement ? table.masques(src, offset, longueur) : 0;
+    }
+
+    /** Texte complet du tableau ; chaîne vide pour {@code null}, comme conversionEBCDICToAscii. */
+    public String decode(byte[] src) {
+        if (src == null) return "";
+        char[] texte = new char[src.length];
+        decode(src, 0, src.length, texte, 0);
+        return new String(texte);
+    }
+}
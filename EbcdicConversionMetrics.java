@@ -0,0 +1,387 @@
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métriques de conversion EBCDIC publiées dans Micrometer, branchées sur les points de mesure
+ * {@link EbcdicConversionProbe} des convertisseurs : enregistrements et octets convertis, temps de lecture,
+ * de décodage et d'écriture, enregistrements aux champs tronqués, champs rejetés par le
+ * contrôle de longueur (verifierChamp), COMP-3 invalides et octets masqués en '?'.
+ * <p>
+ * Les compteurs sont des {@link LongAdder} : les threads de décodage parallèles les
+ * alimentent sans se synchroniser. Chaque convertisseur accumule dans sa propre
+ * sonde et ne reporte qu'une fois par enregistrement. Le temps de décodage de
+ * chaque champ n'est mesuré qu'un enregistrement sur {@code echantillonnage}.
+ * <p>
+ * Les compteurs sont publiés à la construction dans le registre Micrometer, avec le tag
+ * {@code conversion} (débits en enregistrements/s et octets/s calculés par le registre). Un
+ * registre n'accepte qu'une instance par valeur du tag : les compteurs d'une seconde instance
+ * ne seraient jamais publiés, sa construction est refusée. Les métriques :
+ * <ul>
+ *   <li>{@code ebcdic.conversion.enregistrements}, {@code ebcdic.conversion.octets} ;</li>
+ *   <li>{@code ebcdic.conversion.temps}, tag {@code etape} (lecture, decodage, ecriture) ;</li>
+ *   <li>{@code ebcdic.conversion.anomalies}, tag {@code type} (champ-tronque, champ-invalide,
+ *       packed-invalide, caractere-masque) ;</li>
+ *   <li>{@code ebcdic.conversion.champ}, tag {@code champ} : histogramme par champ.</li>
+ * </ul>
+ * Listener d'un step, l'instance écrit aussi dans son ExecutionContext les compteurs du
+ * step ({@value #PREFIXE}*). Les compteurs étant partagés, un step partitionné est suivi
+ * par son step maître, pas par chaque partition.
+ */
+public class EbcdicConversionMetrics implements EbcdicConversionProbe, StepExecutionListener {
+
+    public static final String PREFIXE = "ebcdic.metriques.";
+
+    /**
+     * Métriques désactivées, listener de step sans effet. Les convertisseurs utilisés hors
+     * de Spring prennent {@link EbcdicConversionProbe#AUCUNE}, sans charger cette classe.
+     */
+    public static final EbcdicConversionMetrics AUCUNE = new EbcdicConversionMetrics();
+
+    private final MeterRegistry registre;
+    private final String conversion;
+    private final int echantillonnage;
+    private final boolean actif;
+
+    private final LongAdder enregistrements = new LongAdder();
+    private final LongAdder octets = new LongAdder();
+    private final LongAdder nanosLecture = new LongAdder();
+    private final LongAdder nanosDecodage = new LongAdder();
+    private final LongAdder nanosEcriture = new LongAdder();
+    private final LongAdder enregistrementsTronques = new LongAdder();
+    private final LongAdder champsInvalides = new LongAdder();
+    private final LongAdder packedInvalides = new LongAdder();
+    private final LongAdder caracteresMasques = new LongAdder();
+
+    // Relevé au début de chaque step suivi, pour n'en reporter que la part
+    private final Map<StepExecution, Releve> departs = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public EbcdicConversionMetrics(MeterRegistry registre, String conversion) {
+        this(registre, conversion, 64);
+    }
+
+    /** @param echantillonnage un enregistrement sur N chronométré champ par champ (0 : jamais) */
+    public EbcdicConversionMetrics(MeterRegistry registre, String conversion, int echantillonnage) {
+        if (echantillonnage < 0) {
+            throw new IllegalArgumentException("Échantillonnage invalide : " + echantillonnage);
+        }
+        this.registre = registre;
+        this.conversion = conversion;
+        this.echantillonnage = echantillonnage;
+        this.actif = true;
+        synchronized (registre) {
+            if (registre.find("ebcdic.conversion.enregistrements").tag("conversion", conversion).meter() != null) {
+                throw new IllegalStateException("Métriques de conversion déjà publiées dans ce registre : " + conversion);
+            }
+            enregistrer();
+        }
+    }
+
+    private EbcdicConversionMetrics() {
+        this.registre = null;
+        this.conversion = null;
+        this.echantillonnage = 0;
+        this.actif = false;
+    }
+
+    private void enregistrer() {
+        FunctionCounter.builder("ebcdic.conversion.enregistrements", enregistrements, LongAdder::sum)
+                .tag("conversion", conversion).baseUnit("records")
+                .description("Enregistrements du corps décodés").register(registre);
+        FunctionCounter.builder("ebcdic.conversion.octets", octets, LongAdder::sum)
+                .tag("conversion", conversion).baseUnit("bytes")
+                .description("Octets d'enregistrements du corps décodés").register(registre);
+        temps("lecture", nanosLecture);
+        temps("decodage", nanosDecodage);
+        temps("ecriture", nanosEcriture);
+        anomalie("champ-tronque", enregistrementsTronques, "Enregistrements dont un champ dépasse la fin, lu comme des zéros");
+        anomalie("champ-invalide", champsInvalides, "Champs rejetés par le contrôle de longueur (verifierChamp)");
+        anomalie("packed-invalide", packedInvalides, "Champs COMP-3 ni vides ni valides, écrits comme des zéros");
+        anomalie("caractere-masque", caracteresMasques, "Octets des champs texte remplacés par '?'");
+    }
+
+    private void temps(String etape, LongAdder nanos) {
+        FunctionTimer.builder("ebcdic.conversion.temps", this, m -> m.enregistrements.sum(),
+                        m -> nanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("conversion", conversion).tag("etape", etape).register(registre);
+    }
+
+    private void anomalie(String type, LongAdder compteur, String description) {
+        FunctionCounter.builder("ebcdic.conversion.anomalies", compteur, LongAdder::sum)
+                .tag("conversion", conversion).tag("type", type).description(description).register(registre);
+    }
+
+    @Override
+    public boolean actif() {
+        return actif;
+    }
+
+    @Override
+    public long top() {
+        return actif ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public long lecture(long depuis) {
+        if (!actif) {
+            return 0;
+        }
+        long maintenant = System.nanoTime();
+        nanosLecture.add(maintenant - depuis);
+        return maintenant;
+    }
+
+    @Override
+    public long ecriture(long depuis) {
+        if (!actif) {
+            return 0;
+        }
+        long maintenant = System.nanoTime();
+        nanosEcriture.add(maintenant - depuis);
+        return maintenant;
+    }
+
+    @Override
+    public void ajouterLecture(long nanos) {
+        if (actif) {
+            nanosLecture.add(nanos);
+        }
+    }
+
+    @Override
+    public void ajouterEcriture(long nanos) {
+        if (actif) {
+            nanosEcriture.add(nanos);
+        }
+    }
+
+    @Override
+    public void enregistrement(int longueur, long nanos) {
+        if (actif) {
+            enregistrements.increment();
+            octets.add(longueur);
+            nanosDecodage.add(nanos);
+        }
+    }
+
+    public long enregistrements() {
+        return enregistrements.sum();
+    }
+
+    public long octets() {
+        return octets.sum();
+    }
+
+    public long enregistrementsTronques() {
+        return enregistrementsTronques.sum();
+    }
+
+    public long champsInvalides() {
+        return champsInvalides.sum();
+    }
+
+    public long packedInvalides() {
+        return packedInvalides.sum();
+    }
+
+    public long caracteresMasques() {
+        return caracteresMasques.sum();
+    }
+
+    public Duration tempsLecture() {
+        return Duration.ofNanos(nanosLecture.sum());
+    }
+
+    /** Cumulé sur tous les threads de décodage. */
+    public Duration tempsDecodage() {
+        return Duration.ofNanos(nanosDecodage.sum());
+    }
+
+    public Duration tempsEcriture() {
+        return Duration.ofNanos(nanosEcriture.sum());
+    }
+
+    @Override
+    public Sonde sonde(EbcdicDecoderPlan plan) {
+        return actif ? new SondeMicrometer(this, plan) : null;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (actif) {
+            departs.put(stepExecution, new Releve(this));
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Releve depart = departs.remove(stepExecution);
+        if (depart == null) {
+            return stepExecution.getExitStatus();
+        }
+        Releve fin = new Releve(this);
+        double secondes = Math.max(fin.instant - depart.instant, 1) / 1e9;
+        long n = fin.enregistrements - depart.enregistrements;
+        long o = fin.octets - depart.octets;
+        ExecutionContext contexte = stepExecution.getExecutionContext();
+        contexte.putLong(PREFIXE + "enregistrements", n);
+        contexte.putLong(PREFIXE + "octets", o);
+        contexte.putDouble(PREFIXE + "enregistrementsParSeconde", n / secondes);
+        contexte.putDouble(PREFIXE + "octetsParSeconde", o / secondes);
+        contexte.putLong(PREFIXE + "lectureMs", (fin.nanosLecture - depart.nanosLecture) / 1_000_000);
+        contexte.putLong(PREFIXE + "decodageMs", (fin.nanosDecodage - depart.nanosDecodage) / 1_000_000);
+        contexte.putLong(PREFIXE + "ecritureMs", (fin.nanosEcriture - depart.nanosEcriture) / 1_000_000);
+        contexte.putLong(PREFIXE + "enregistrementsTronques", fin.enregistrementsTronques - depart.enregistrementsTronques);
+        contexte.putLong(PREFIXE + "champsInvalides", fin.champsInvalides - depart.champsInvalides);
+        contexte.putLong(PREFIXE + "packedInvalides", fin.packedInvalides - depart.packedInvalides);
+        contexte.putLong(PREFIXE + "caracteresMasques", fin.caracteresMasques - depart.caracteresMasques);
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public String toString() {
+        return "enregistrements=" + enregistrements() + ", octets=" + octets()
+            + ", lecture=" + tempsLecture().toMillis() + "ms, décodage=" + tempsDecodage().toMillis()
+            + "ms, écriture=" + tempsEcriture().toMillis() + "ms, champs tronqués=" + enregistrementsTronques()
+            + ", champs invalides=" + champsInvalides() + ", COMP-3 invalides=" + packedInvalides()
+            + ", caractères masqués=" + caracteresMasques();
+    }
+
+    private static final class Releve {
+        private final long instant = System.nanoTime();
+        private final long enregistrements;
+        private final long octets;
+        private final long nanosLecture;
+        private final long nanosDecodage;
+        private final long nanosEcriture;
+        private final long enregistrementsTronques;
+        private final long champsInvalides;
+        private final long packedInvalides;
+        private final long caracteresMasques;
+
+        Releve(EbcdicConversionMetrics m) {
+            enregistrements = m.enregistrements.sum();
+            octets = m.octets.sum();
+            nanosLecture = m.nanosLecture.sum();
+            nanosDecodage = m.nanosDecodage.sum();
+            nanosEcriture = m.nanosEcriture.sum();
+            enregistrementsTronques = m.enregistrementsTronques.sum();
+            champsInvalides = m.champsInvalides.sum();
+            packedInvalides = m.packedInvalides.sum();
+            caracteresMasques = m.caracteresMasques.sum();
+        }
+    }
+
+    // Compteurs d'un convertisseur reportés dans les compteurs partagés, Timers par champ
+    private static final class SondeMicrometer implements Sonde {
+        private final EbcdicConversionMetrics metriques;
+        private final Timer[] chronos;
+        private final Timer[] chronosGroupe;
+        private int avantEchantillon;
+        private boolean tronque;
+        private int invalides;
+        private int packedInvalides;
+        private int masques;
+
+        private SondeMicrometer(EbcdicConversionMetrics metriques, EbcdicDecoderPlan plan) {
+            this.metriques = metriques;
+            boolean parChamp = metriques.echantillonnage > 0;
+            this.chronos = parChamp ? chronos(plan.noms()) : null;
+            this.chronosGroupe = parChamp ? chronos(plan.nomsGroupe()) : null;
+        }
+
+        // Même champ, même Timer : le registre retourne celui déjà enregistré
+        private Timer[] chronos(String[] noms) {
+            Timer[] timers = new Timer[noms.length];
+            for (int i = 0; i < noms.length; i++) {
+                timers[i] = Timer.builder("ebcdic.conversion.champ")
+                        .tag("conversion", metriques.conversion).tag("champ", noms[i])
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(100))
+                        .maximumExpectedValue(Duration.ofMillis(1))
+                        .register(metriques.registre);
+            }
+            return timers;
+        }
+
+        @Override
+        public boolean chronometrer() {
+            if (chronos == null) {
+                return false;
+            }
+            if (--avantEchantillon > 0) {
+                return false;
+            }
+            avantEchantillon = metriques.echantillonnage;
+            return true;
+        }
+
+        @Override
+        public long champ(int i, long depuis) {
+            long maintenant = System.nanoTime();
+            chronos[i].record(maintenant - depuis, TimeUnit.NANOSECONDS);
+            return maintenant;
+        }
+
+        @Override
+        public long champGroupe(int i, long depuis) {
+            long maintenant = System.nanoTime();
+            chronosGroupe[i].record(maintenant - depuis, TimeUnit.NANOSECONDS);
+            return maintenant;
+        }
+
+        @Override
+        public void tronque() {
+            tronque = true;
+        }
+
+        @Override
+        public void champInvalide() {
+            invalides++;
+        }
+
+        @Override
+        public void packedInvalide() {
+            packedInvalides++;
+        }
+
+        @Override
+        public void masques(int n) {
+            masques += n;
+        }
+
+        @Override
+        public void terminer(int longueur, long nanos) {
+            metriques.enregistrement(longueur, nanos);
+            if (tronque) {
+                metriques.enregistrementsTronques.increment();
+                tronque = false;
+            }
+            if (invalides > 0) {
+                metriques.champsInvalides.add(invalides);
+                invalides = 0;
+            }
+            if (packedInvalides > 0) {
+                metriques.packedInvalides.add(packedInvalides);
+                packedInvalides = 0;
+            }
+            if (masques > 0) {
+                metriques.caracteresMasques.add(masques);
+                masques = 0;
+            }
+        }
+    }
+}
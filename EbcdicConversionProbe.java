@@ -0,0 +1,77 @@
+/**
+ * Points de mesure de la conversion EBCDIC appelés par les convertisseurs, le plan de
+ * décodage et les lecteurs : temps de lecture, de décodage et d'écriture, et anomalies
+ * de chaque corps.
+ * <p>
+ * Toutes les méthodes ont une implémentation vide par défaut ({@link #AUCUNE}) : le cœur de
+ * la conversion, et les outils en ligne de commande qui l'utilisent, ne dépendent ni de
+ * Micrometer ni de Spring Batch. {@link EbcdicConversionMetrics} publie ces mesures dans un
+ * registre Micrometer et les reporte dans le contexte d'un step.
+ */
+public interface EbcdicConversionProbe {
+
+    /** Aucune mesure : pas de compteur, pas de lecture d'horloge. */
+    EbcdicConversionProbe AUCUNE = new EbcdicConversionProbe() {
+    };
+
+    default boolean actif() {
+        return false;
+    }
+
+    /** Instant de départ d'une mesure ; 0 si rien n'est mesuré. */
+    default long top() {
+        return 0;
+    }
+
+    /** Ajoute le temps de lecture écoulé depuis {@code depuis} et retourne l'instant présent. */
+    default long lecture(long depuis) {
+        return 0;
+    }
+
+    /** Ajoute le temps d'écriture écoulé depuis {@code depuis} et retourne l'instant présent. */
+    default long ecriture(long depuis) {
+        return 0;
+    }
+
+    /** Temps de lecture mesuré par ailleurs (étages du pipeline). */
+    default void ajouterLecture(long nanos) {
+    }
+
+    default void ajouterEcriture(long nanos) {
+    }
+
+    /** Enregistrement du corps de {@code longueur} octets décodé en {@code nanos}. */
+    default void enregistrement(int longueur, long nanos) {
+    }
+
+    /** Sonde d'un convertisseur pour ce plan, ou null si rien n'est compté par enregistrement. */
+    default Sonde sonde(EbcdicDecoderPlan plan) {
+        return null;
+    }
+
+    /**
+     * Compteurs d'un convertisseur pour l'enregistrement en cours, reportés par
+     * {@link #terminer}. Confinée au thread du convertisseur.
+     */
+    interface Sonde {
+
+        /** Vrai si les champs de l'enregistrement à décoder doivent être chronométrés. */
+        boolean chronometrer();
+
+        /** Temps du champ {@code i} terminé maintenant ; retourne l'instant présent. */
+        long champ(int i, long depuis);
+
+        long champGroupe(int i, long depuis);
+
+        void tronque();
+
+        void champInvalide();
+
+        void packedInvalide();
+
+        void masques(int n);
+
+        /** Reporte l'enregistrement décodé (ou rejeté) et remet la sonde à zéro. */
+        void terminer(int longueur, long nanos);
+    }
+}
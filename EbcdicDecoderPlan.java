@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Plan de décodage compilé à partir d'un {@link EbcdicRecordLayout}.
+ * <p>
+ * La description est aplatie en tableaux (type, offset, longueur, largeur, codec du
+ * champ texte) parcourus séquentiellement pour chaque enregistrement : ni réflexion, ni
+ * recherche par nom. Le plan est immuable et peut être partagé entre threads.
+ * <p>
+ * Les octets situés au-delà de la fin de l'enregistrement sont lus comme des zéros,
+ * comme dans le tampon de 20000 octets historique de plcConvert.
+ * <p>
+ * Avec une {@link EbcdicConversionProbe.Sonde}, l'exécution compte aussi les anomalies
+ * (champs tronqués ou rejetés, COMP-3 invalides, octets masqués) et chronomètre chaque
+ * champ des enregistrements échantillonnés.
+ */
+public final class EbcdicDecoderPlan {
+
+    private static final int DISPLAY = 0;
+    private static final int COMP3 = 1;
+    private static final int BINAIRE = 2;
+
+    private final int[] types;
+    private final int[] offsets;
+    private final int[] longueurs;
+    private final int[] largeurs;
+    private final EbcdicCodec[] codecs;
+    private final String[] noms;
+
+    private final int[] typesGroupe;
+    private final int[] offsetsGroupe;
+    private final int[] longueursGroupe;
+    private final int[] largeursGroupe;
+    private final EbcdicCodec[] codecsGroupe;
+    private final String[] nomsGroupe;
+
+    // Longueur d'enregistrement couvrant tous les champs, hors groupe, puis par occurrence
+    private final int etendue;
+    private final int etendueGroupe;
+
+    private final int compteurType;
+    private final int compteurOffset;
+    private final int compteurLongueur;
+    private final int groupeBase;
+    private final int groupePas;
+    private final boolean compteurInvalideAZero;
+    private final boolean controleLongueur;
+
+    EbcdicDecoderPlan(EbcdicRecordLayout layout) {
+        List<EbcdicRecordLayout.Champ> champs = layout.getChamps();
+        types = new int[champs.size()];
+        offsets = new int[champs.size()];
+        longueurs = new int[champs.size()];
+        largeurs = new int[champs.size()];
+        codecs = new EbcdicCodec[champs.size()];
+        noms = new String[champs.size()];
+        compiler(champs, layout, types, offsets, longueurs, largeurs, codecs, noms);
+
+        List<EbcdicRecordLayout.Champ> groupe = layout.getChampsGroupe();
+        typesGroupe = new int[groupe.size()];
+        offsetsGroupe = new int[groupe.size()];
+        longueursGroupe = new int[groupe.size()];
+        largeursGroupe = new int[groupe.size()];
+        codecsGroupe = new EbcdicCodec[groupe.size()];
+        nomsGroupe = new String[groupe.size()];
+        compiler(groupe, layout, typesGroupe, offsetsGroupe, longueursGroupe, largeursGroupe, codecsGroupe, nomsGroupe);
+
+        EbcdicRecordLayout.Champ compteur = layout.getCompteur();
+        compteurType = compteur != null ? compteur.getType().ordinal() : COMP3;
+        compteurOffset = compteur != null ? compteur.getOffset() : 0;
+        compteurLongueur = compteur != null ? compteur.getLongueur() : 0;
+        groupeBase = layout.getGroupeBase();
+        groupePas = layout.getGroupePas();
+        compteurInvalideAZero = layout.isCompteurInvalideAZero();
+        controleLongueur = layout.isControleLongueur();
+        etendue = Math.max(etendue(offsets, longueurs), compteurOffset + compteurLongueur);
+        etendueGroupe = etendue(offsetsGroupe, longueursGroupe);
+    }
+
+    private static int etendue(int[] offsets, int[] longueurs) {
+        int etendue = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            etendue = Math.max(etendue, offsets[i] + longueurs[i]);
+        }
+        return etendue;
+    }
+
+    private static void compiler(List<EbcdicRecordLayout.Champ> champs, EbcdicRecordLayout layout, int[] types,
+                                 int[] offsets, int[] longueurs, int[] largeurs, EbcdicCodec[] codecs, String[] noms) {
+        for (int i = 0; i < champs.size(); i++) {
+            EbcdicRecordLayout.Champ champ = champs.get(i);
+            types[i] = champ.getType().ordinal();
+            offsets[i] = champ.getOffset();
+            longueurs[i] = champ.getLongueur();
+            largeurs[i] = champ.getLargeurPad();
+            codecs[i] = layout.codec(champ.isImprimable());
+            noms[i] = champ.getNom();
+        }
+    }
+
+    /** Noms des champs hors groupe, dans l'ordre du décodage. */
+    String[] noms() {
+        return noms.clone();
+    }
+
+    /** Noms des champs du groupe répété. */
+    String[] nomsGroupe() {
+        return nomsGroupe.clone();
+    }
+
+    /**
+     * Décode l'enregistrement [debut, debut + longueur) de la vue et ajoute la ligne à {@code sortie}.
+     *
+     * @param resteDonnees des octets suivent l'enregistrement dans le fichier (contrôle des champs)
+     * @param champ        vue de travail réutilisée pour chaque champ, confinée au thread appelant
+     */
+    public void executer(ByteBuffer vue, int debut, int longueur, boolean resteDonnees,
+                         LigneSortie sortie, EbcdicFieldView champ) throws IOException {
+        executer(vue, debut, longueur, resteDonnees, sortie, champ, null);
+    }
+
+    /** Variante instrumentée ; {@code sonde} null équivaut à {@link #executer(ByteBuffer, int, int, boolean, LigneSortie, EbcdicFieldView)}. */
+    void executer(ByteBuffer vue, int debut, int longueur, boolean resteDonnees,
+                  LigneSortie sortie, EbcdicFieldView champ, EbcdicConversionProbe.Sonde sonde) throws IOException {
+        int occurrences = occurrences(vue, debut, longueur, champ);
+        // En cas d'erreur, la ligne commencée est retirée : rien n'est écrit pour cet enregistrement
+        int lignePartielle = sortie.longueur();
+        boolean chrono = sonde != null && sonde.chronometrer();
+        long top = chrono ? System.nanoTime() : 0;
+        if (sonde != null && longueur < etendue(occurrences)) {
+            sonde.tronque();
+        }
+        try {
+            for (int i = 0; i < types.length; i++) {
+                decoderChamp(types[i], offsets[i], longueurs[i], largeurs[i], codecs[i],
+                        vue, debut, longueur, resteDonnees, sortie, champ, sonde);
+                if (chrono) {
+                    top = sonde.champ(i, top);
+                }
+            }
+            for (int n = 0; n < occurrences; n++) {
+                int base = groupeBase + n * groupePas;
+                for (int j = 0; j < typesGroupe.length; j++) {
+                    decoderChamp(typesGroupe[j], base + offsetsGroupe[j], longueursGroupe[j], largeursGroupe[j],
+                            codecsGroupe[j], vue, debut, longueur, resteDonnees, sortie, champ, sonde);
+                    if (chrono) {
+                        top = sonde.champGroupe(j, top);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            sortie.vider();
+            sortie.avancer(lignePartielle);
+            throw e;
+        }
+    }
+
+    /**
+     * Nombre d'occurrences du groupe répété (0 sans compteur), avec les mêmes règles que
+     * {@link #executer} pour un compteur invalide.
+     *
+     * @throws NumberFormatException compteur invalide et disposition sans compteurInvalideAZero
+     */
+    public int occurrences(ByteBuffer vue, int debut, int longueur, EbcdicFieldView champ) {
+        return compteurLongueur > 0 ? lireCompteur(champ.sur(vue, debut, longueur, compteurOffset, compteurLongueur)) : 0;
+    }
+
+    // Longueur à partir de laquelle aucun champ décodé n'est complété par des zéros
+    private int etendue(int occurrences) {
+        if (occurrences <= 0 || etendueGroupe == 0) {
+            return etendue;
+        }
+        return Math.max(etendue, groupeBase + (occurrences - 1) * groupePas + etendueGroupe);
+    }
+
+    private int lireCompteur(EbcdicFieldView compteur) {
+        if (compteurType == BINAIRE) {
+            return (int) compteur.binaire();
+        }
+        try {
+            return compteur.compteur();
+        } catch (NumberFormatException e) {
+            if (compteurInvalideAZero) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private void decoderChamp(int type, int offset, int taille, int largeur, EbcdicCodec codec,
+                              ByteBuffer vue, int debut, int longueur, boolean resteDonnees,
+                              LigneSortie sortie, EbcdicFieldView champ, EbcdicConversionProbe.Sonde sonde) throws IOException {
+        if (controleLongueur) {
+            try {
+                EbcdicOutils.verifierChamp(offset + taille, resteDonnees);
+            } catch (IOException e) {
+                if (sonde != null) {
+                    sonde.champInvalide();
+                }
+                throw e;
+            }
+        }
+        switch (type) {
+            case DISPLAY: {
+                // Lu en place : les octets manquants sont décodés comme des zéros, sans copie
+                int lus = EbcdicFieldView.octetsLisibles(longueur, offset, taille);
+                char[] chars = sortie.reserver(taille);
+                int position = sortie.longueur();
+                codec.decode(vue, debut + offset, lus, chars, position);
+                if (sonde != null) {
+                    sonde.masques(codec.masques(vue, debut + offset, lus));
+                }
+                char zero = codec.decode((byte) 0);
+                for (int i = lus; i < taille; i++) {
+                    chars[position + i] = zero;
+                }
+                sortie.avancer(taille);
+                break;
+            }
+            case COMP3: {
+                char[] chars = sortie.reserver(PackedDecimal.tailleMaxChiffres(taille, largeur));
+                EbcdicFieldView packed = champ.sur(vue, debut, longueur, offset, taille);
+                sortie.avancer(packed.chiffres(largeur, chars, sortie.longueur()));
+                if (sonde != null && packed.packedInvalide()) {
+                    sonde.packedInvalide();
+                }
+                break;
+            }
+            default: {
+                char[] chars = sortie.reserver(EbcdicFieldView.tailleMaxEntier(largeur));
+                sortie.avancer(champ.sur(vue, debut, longueur, offset, taille).entier(largeur, chars, sortie.longueur()));
+                break;
+            }
+        }
+    }
+}
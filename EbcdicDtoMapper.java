@@ -0,0 +1,257 @@
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Correspondance directe enregistrement EBCDIC → objet métier (RubanSicDto…), sans passer
+ * par la ligne ASCII à largeur fixe relue ensuite par le LineMapper.
+ * <p>
+ * Chaque propriété est liée par nom à un champ d'un {@link EbcdicRecordLayout} ; offsets,
+ * tailles, types et codec sont résolus une fois à la construction. Pour chaque
+ * enregistrement, les champs sont lus en place dans le tampon du framer : texte décodé
+ * puis trim, COMP-3 et binaire en {@code long} ou {@link BigDecimal}, occurrences du
+ * groupe répété ajoutées une à une à la cible. Un champ COMP-3 vide (0xFF) ou invalide
+ * laisse la propriété à sa valeur initiale.
+ * <p>
+ * Le mapper est immuable et partageable entre threads ; la {@link EbcdicFieldView} passée
+ * à {@link #mapper} reste confinée au thread appelant. La ligne ASCII
+ * ({@link SicRecordConverter}) reste le chemin de la conversion en fichier.
+ * <pre>
+ * EbcdicDtoMapper&lt;RubanSicDto&gt; mapper = EbcdicDtoMapper.builder(EbcdicRecordLayout.RUBAN_SIC, RubanSicDto::new)
+ *         .texte("champ2", RubanSicDto::setLibelle)
+ *         .nombre("champ5", RubanSicDto::setMontant)
+ *         .groupe(OccurrenceDto::new, RubanSicDto::ajouterOccurrence)
+ *             .nombre("champ11", OccurrenceDto::setMontant)
+ *             .texte("champ12", OccurrenceDto::setLibelle)
+ *             .fin()
+ *         .build();
+ * </pre>
+ */
+public final class EbcdicDtoMapper<T> implements EbcdicRecordMapper<T> {
+
+    // Lecture d'un champ positionné par la vue et affectation à la cible
+    @FunctionalInterface
+    private interface Affectation<C> {
+        void affecter(C cible, EbcdicFieldView champ);
+    }
+
+    private static final class Liaison<C> {
+        final int offset;
+        final int taille;
+        final Affectation<C> affectation;
+
+        Liaison(EbcdicRecordLayout.Champ champ, Affectation<C> affectation) {
+            this.offset = champ.getOffset();
+            this.taille = champ.getLongueur();
+            this.affectation = affectation;
+        }
+    }
+
+    private static final class Groupe<T, G> {
+        final Supplier<G> fabrique;
+        final BiConsumer<T, G> ajout;
+        final List<Liaison<G>> liaisons;
+
+        Groupe(Supplier<G> fabrique, BiConsumer<T, G> ajout, List<Liaison<G>> liaisons) {
+            this.fabrique = fabrique;
+            this.ajout = ajout;
+            this.liaisons = liaisons;
+        }
+
+        void ajouter(T cible, int base, ByteBuffer vue, int debut, int longueur, boolean resteDonnees,
+                     boolean controleLongueur, EbcdicFieldView champ) throws IOException {
+            G occurrence = fabrique.get();
+            for (Liaison<G> liaison : liaisons) {
+                affecter(liaison, occurrence, base, vue, debut, longueur, resteDonnees, controleLongueur, champ);
+            }
+            ajout.accept(cible, occurrence);
+        }
+    }
+
+    private final Supplier<T> fabrique;
+    private final EbcdicDecoderPlan plan;
+    private final List<Liaison<T>> liaisons;
+    private final Groupe<T, ?> groupe;
+    private final int groupeBase;
+    private final int groupePas;
+    private final boolean controleLongueur;
+
+    private EbcdicDtoMapper(Builder<T> builder) {
+        this.fabrique = builder.fabrique;
+        this.plan = builder.layout.plan();
+        this.liaisons = new ArrayList<>(builder.liaisons);
+        this.groupe = builder.groupe;
+        this.groupeBase = builder.layout.getGroupeBase();
+        this.groupePas = builder.layout.getGroupePas();
+        this.controleLongueur = builder.layout.isControleLongueur();
+    }
+
+    public static <T> Builder<T> builder(EbcdicRecordLayout layout, Supplier<T> fabrique) {
+        return new Builder<>(layout, fabrique);
+    }
+
+    /**
+     * Objet rempli à partir de l'enregistrement [debut, debut + longueur) de la vue.
+     *
+     * @param resteDonnees des octets suivent l'enregistrement dans le fichier (contrôle des champs,
+     *                     comme {@link EbcdicDecoderPlan#executer})
+     * @param champ        vue de travail réutilisée pour chaque champ, confinée au thread appelant
+     * @throws NumberFormatException compteur d'occurrences invalide
+     */
+    @Override
+    public T mapper(ByteBuffer vue, int debut, int longueur, boolean resteDonnees, EbcdicFieldView champ) throws IOException {
+        int occurrences = groupe != null ? plan.occurrences(vue, debut, longueur, champ) : 0;
+        T cible = fabrique.get();
+        for (int i = 0; i < liaisons.size(); i++) {
+            affecter(liaisons.get(i), cible, 0, vue, debut, longueur, resteDonnees, controleLongueur, champ);
+        }
+        for (int n = 0; n < occurrences; n++) {
+            groupe.ajouter(cible, groupeBase + n * groupePas, vue, debut, longueur, resteDonnees, controleLongueur, champ);
+        }
+        return cible;
+    }
+
+    private static <C> void affecter(Liaison<C> liaison, C cible, int base, ByteBuffer vue, int debut, int longueur,
+                                     boolean resteDonnees, boolean controleLongueur, EbcdicFieldView champ) throws IOException {
+        int offset = base + liaison.offset;
+        if (controleLongueur) {
+            EbcdicOutils.verifierChamp(offset + liaison.taille, resteDonnees);
+        }
+        liaison.affectation.affecter(cible, champ.sur(vue, debut, longueur, offset, liaison.taille));
+    }
+
+    // Liaisons communes aux champs fixes et aux champs du groupe
+
+    private static EbcdicRecordLayout.Champ chercher(List<EbcdicRecordLayout.Champ> champs, String nom,
+                                                     EbcdicRecordLayout.TypeChamp... types) {
+        for (EbcdicRecordLayout.Champ champ : champs) {
+            if (champ.getNom().equals(nom)) {
+                for (EbcdicRecordLayout.TypeChamp type : types) {
+                    if (champ.getType() == type) {
+                        return champ;
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("Champ " + nom + " de type " + Arrays.toString(types)
+                + " absent de la disposition");
+    }
+
+    private static <C> Liaison<C> texte(EbcdicRecordLayout layout, List<EbcdicRecordLayout.Champ> champs, String nom,
+                                        BiConsumer<C, String> propriete) {
+        EbcdicRecordLayout.Champ champ = chercher(champs, nom, EbcdicRecordLayout.TypeChamp.DISPLAY);
+        EbcdicCodec codec = layout.codec(champ.isImprimable());
+        return new Liaison<>(champ, (cible, vue) -> propriete.accept(cible, vue.chaine(codec)));
+    }
+
+    private static <C> Liaison<C> nombre(List<EbcdicRecordLayout.Champ> champs, String nom, ObjLongConsumer<C> propriete) {
+        EbcdicRecordLayout.Champ champ = chercher(champs, nom,
+                EbcdicRecordLayout.TypeChamp.COMP3, EbcdicRecordLayout.TypeChamp.BINAIRE);
+        if (champ.getType() == EbcdicRecordLayout.TypeChamp.BINAIRE) {
+            return new Liaison<>(champ, (cible, vue) -> propriete.accept(cible, vue.binaire()));
+        }
+        if (champ.getLongueur() > 9) {
+            // 17 chiffres au plus dans un long
+            throw new IllegalArgumentException("Champ COMP-3 " + nom + " trop long pour un long : utiliser decimal()");
+        }
+        return new Liaison<>(champ, (cible, vue) -> {
+            long valeur = vue.packed();
+            if (valeur != PackedDecimal.VIDE && valeur != PackedDecimal.INVALIDE) {
+                propriete.accept(cible, valeur);
+            }
+        });
+    }
+
+    private static <C> Liaison<C> decimal(List<EbcdicRecordLayout.Champ> champs, String nom, int echelle,
+                                          BiConsumer<C, BigDecimal> propriete) {
+        EbcdicRecordLayout.Champ champ = chercher(champs, nom, EbcdicRecordLayout.TypeChamp.COMP3);
+        return new Liaison<>(champ, (cible, vue) -> {
+            BigDecimal valeur = vue.decimal(echelle);
+            if (valeur != null) {
+                propriete.accept(cible, valeur);
+            }
+        });
+    }
+
+    public static final class Builder<T> {
+        private final EbcdicRecordLayout layout;
+        private final Supplier<T> fabrique;
+        private final List<Liaison<T>> liaisons = new ArrayList<>();
+        private Groupe<T, ?> groupe;
+
+        private Builder(EbcdicRecordLayout layout, Supplier<T> fabrique) {
+            this.layout = layout;
+            this.fabrique = fabrique;
+        }
+
+        /** Champ texte (DISPLAY), décodé avec le codec de la disposition puis trim. */
+        public Builder<T> texte(String nom, BiConsumer<T, String> propriete) {
+            liaisons.add(EbcdicDtoMapper.texte(layout, layout.getChamps(), nom, propriete));
+            return this;
+        }
+
+        /** Champ COMP-3 (au plus 9 octets) ou binaire, valeur entière non mise à l'échelle. */
+        public Builder<T> nombre(String nom, ObjLongConsumer<T> propriete) {
+            liaisons.add(EbcdicDtoMapper.nombre(layout.getChamps(), nom, propriete));
+            return this;
+        }
+
+        /** Champ COMP-3 avec {@code echelle} décimales implicites. */
+        public Builder<T> decimal(String nom, int echelle, BiConsumer<T, BigDecimal> propriete) {
+            liaisons.add(EbcdicDtoMapper.decimal(layout.getChamps(), nom, echelle, propriete));
+            return this;
+        }
+
+        /** Groupe répété : une occurrence créée par {@code fabrique} et ajoutée à la cible par {@code ajout}. */
+        public <G> GroupeBuilder<T, G> groupe(Supplier<G> fabrique, BiConsumer<T, G> ajout) {
+            if (layout.getCompteur() == null) {
+                throw new IllegalStateException("La disposition n'a pas de groupe répétitif");
+            }
+            return new GroupeBuilder<>(this, fabrique, ajout);
+        }
+
+        public EbcdicDtoMapper<T> build() {
+            return new EbcdicDtoMapper<>(this);
+        }
+    }
+
+    public static final class GroupeBuilder<T, G> {
+        private final Builder<T> parent;
+        private final Supplier<G> fabrique;
+        private final BiConsumer<T, G> ajout;
+        private final List<Liaison<G>> liaisons = new ArrayList<>();
+
+        private GroupeBuilder(Builder<T> parent, Supplier<G> fabrique, BiConsumer<T, G> ajout) {
+            this.parent = parent;
+            this.fabrique = fabrique;
+            this.ajout = ajout;
+        }
+
+        public GroupeBuilder<T, G> texte(String nom, BiConsumer<G, String> propriete) {
+            liaisons.add(EbcdicDtoMapper.texte(parent.layout, parent.layout.getChampsGroupe(), nom, propriete));
+            return this;
+        }
+
+        public GroupeBuilder<T, G> nombre(String nom, ObjLongConsumer<G> propriete) {
+            liaisons.add(EbcdicDtoMapper.nombre(parent.layout.getChampsGroupe(), nom, propriete));
+            return this;
+        }
+
+        public GroupeBuilder<T, G> decimal(String nom, int echelle, BiConsumer<G, BigDecimal> propriete) {
+            liaisons.add(EbcdicDtoMapper.decimal(parent.layout.getChampsGroupe(), nom, echelle, propriete));
+            return this;
+        }
+
+        /** Termine le groupe et revient aux champs fixes. */
+        public Builder<T> fin() {
+            parent.groupe = new Groupe<>(fabrique, ajout, new ArrayList<>(liaisons));
+            return parent;
+        }
+    }
+}
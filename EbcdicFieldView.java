@@ -0,0 +1,163 @@
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Vue réutilisable sur un champ d'enregistrement, à la place des tableaux array2, array4…
+ * alloués pour chaque enregistrement par le découpage historique.
+ * <p>
+ * Un champ entièrement présent est lu en place dans le tampon du framer. Un champ tronqué
+ * par la fin de l'enregistrement est recopié dans un tampon de travail complété par des
+ * zéros, comme dans le tampon de 20000 octets de plcConvert. Le tampon de travail est
+ * alloué une fois : une vue n'est pas thread-safe et doit rester confinée à un thread.
+ */
+public final class EbcdicFieldView {
+
+    private static final int TAILLE_MAX = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+
+    private byte[] travail = new byte[TAILLE_MAX];
+    private ByteBuffer vueTravail = ByteBuffer.wrap(travail);
+    private char[] caracteres = new char[256];
+
+    private ByteBuffer tampon;
+    private int position;
+    private int taille;
+
+    /**
+     * Positionne la vue sur le champ [offset, offset + taille) de l'enregistrement
+     * [debut, debut + longueur) de {@code vue}.
+     */
+    public EbcdicFieldView sur(ByteBuffer vue, int debut, int longueur, int offset, int taille) {
+        int lus = octetsLisibles(longueur, offset, taille);
+        if (lus == taille) {
+            tampon = vue;
+            position = debut + offset;
+        } else {
+            if (taille > travail.length) {
+                travail = new byte[taille];
+                vueTravail = ByteBuffer.wrap(travail);
+            }
+            if (lus > 0) {
+                vue.get(debut + offset, travail, 0, lus);
+            }
+            Arrays.fill(travail, lus, taille, (byte) 0);
+            tampon = vueTravail;
+            position = 0;
+        }
+        this.taille = taille;
+        return this;
+    }
+
+    /** Nombre d'octets du champ réellement présents dans l'enregistrement (le reste vaut zéro). */
+    public static int octetsLisibles(int longueur, int offset, int taille) {
+        return Math.max(0, Math.min(taille, Math.min(longueur, TAILLE_MAX) - offset));
+    }
+
+    public ByteBuffer tampon() {
+        return tampon;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    /** Texte EBCDIC décodé dans {@code dst} ; retourne le nombre de caractères écrits. */
+    public int texte(EbcdicCodec codec, char[] dst, int dstOffset) {
+        return codec.decode(tampon, position, taille, dst, dstOffset);
+    }
+
+    /** Texte décodé sans espaces ni caractères de contrôle en tête et en fin, comme {@link String#trim}. */
+    public String chaine(EbcdicCodec codec) {
+        if (taille > caracteres.length) {
+            caracteres = new char[Math.max(taille, 2 * caracteres.length)];
+        }
+        codec.decode(tampon, position, taille, caracteres, 0);
+        int debut = 0;
+        int fin = taille;
+        while (debut < fin && caracteres[debut] <= ' ') {
+            debut++;
+        }
+        while (fin > debut && caracteres[fin - 1] <= ' ') {
+            fin--;
+        }
+        return new String(caracteres, debut, fin - debut);
+    }
+
+    /** Valeur COMP-3, voir {@link PackedDecimal#decoderLong} (VIDE, INVALIDE). */
+    public long packed() {
+        return PackedDecimal.decoderLong(tampon, position, taille);
+    }
+
+    /** Champ COMP-3 ni vide ni valide, voir {@link PackedDecimal#estInvalide}. */
+    public boolean packedInvalide() {
+        return PackedDecimal.estInvalide(tampon, position, taille);
+    }
+
+    /** Valeur COMP-3 à {@code echelle} décimales implicites, null si vide ou invalide. */
+    public BigDecimal decimal(int echelle) {
+        return PackedDecimal.decoderDecimal(tampon, position, taille, echelle);
+    }
+
+    /** Chiffres COMP-3 complétés à gauche, voir {@link PackedDecimal#ecrireChiffres}. */
+    public int chiffres(int largeur, char[] dst, int dstOffset) {
+        return PackedDecimal.ecrireChiffres(tampon, position, taille, largeur, dst, dstOffset);
+    }
+
+    /** Compteur COMP-3, voir {@link PackedDecimal#compteur}. */
+    public int compteur() {
+        return PackedDecimal.compteur(tampon, position, taille);
+    }
+
+    /** Entier binaire big-endian signé, avec extension de signe sur la taille du champ. */
+    public long binaire() {
+        long valeur = 0;
+        for (int i = 0; i < taille; i++) {
+            valeur = (valeur << 8) | (tampon.get(position + i) & 0xFF);
+        }
+        if (taille < 8) {
+            int decalage = 64 - 8 * taille;
+            valeur = (valeur << decalage) >> decalage;
+        }
+        return valeur;
+    }
+
+    /** Au plus {@code max(largeur, 20)} caractères écrits par {@link #entier}. */
+    public static int tailleMaxEntier(int largeur) {
+        return Math.max(largeur, 20);
+    }
+
+    /**
+     * Entier binaire écrit comme {@code padLeft(Long.toString(binaire()), largeur, '0')} :
+     * les zéros de complément précèdent le signe.
+     *
+     * @return le nombre de caractères écrits
+     */
+    public int entier(int largeur, char[] dst, int dstOffset) {
+        long valeur = binaire();
+        // Calcul en négatif : Long.MIN_VALUE n'a pas d'opposé
+        long negatif = valeur > 0 ? -valeur : valeur;
+        int caracteres = valeur < 0 ? 1 : 0;
+        for (long q = negatif; ; q /= 10) {
+            caracteres++;
+            if (q / 10 == 0) {
+                break;
+            }
+        }
+        int complement = Math.max(0, largeur - caracteres);
+        Arrays.fill(dst, dstOffset, dstOffset + complement, '0');
+        int i = dstOffset + complement + caracteres;
+        long q = negatif;
+        do {
+            dst[--i] = (char) ('0' - (q % 10));
+            q /= 10;
+        } while (q != 0);
+        if (valeur < 0) {
+            dst[--i] = '-';
+        }
+        return complement + caracteres;
+    }
+}
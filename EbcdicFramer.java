@@ -0,0 +1,44 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source d'enregistrements EBCDIC découpés selon la règle de plcConvert.
+ * L'enregistrement courant est une vue sur {@link #vue()} entre {@link #debut()}
+ * et {@code debut() + longueur()}, valable jusqu'au prochain appel à {@link #suivant(int)}.
+ */
+public interface EbcdicFramer extends Closeable {
+
+    /**
+     * Positionne l'enregistrement suivant.
+     *
+     * @param longueurMin longueur minimale avant laquelle le délimiteur est ignoré
+     * @return {@code false} en fin de fichier (aucun octet restant)
+     */
+    boolean suivant(int longueurMin) throws IOException;
+
+    /** Nombre d'octets restant après l'enregistrement courant. */
+    long disponible() throws IOException;
+
+    ByteBuffer vue();
+
+    int debut();
+
+    int longueur();
+
+    /** Position de l'enregistrement courant dans le fichier, en octets. */
+    long positionEnregistrement();
+
+    /** Position, en octets, de l'enregistrement qui suit l'enregistrement courant. */
+    default long positionSuivante() {
+        return positionEnregistrement() + longueur();
+    }
+
+    /**
+     * Reprend le découpage à {@code position}, qui doit être un début d'enregistrement
+     * (valeur de {@link #positionSuivante()} sauvegardée lors d'une exécution précédente).
+     * Le découpage ne dépend que du début de chaque enregistrement : la suite est identique
+     * à une lecture depuis le début du fichier. À appeler avant le premier {@link #suivant(int)}.
+     */
+    void reprendreA(long position) throws IOException;
+}
@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lot des convertisseurs parallèle et en pipeline : enregistrements copiés de façon
+ * contiguë depuis le framer, indépendamment de son tampon, puis lignes décodées par un
+ * autre thread et écrites dans l'ordre du fichier par le thread appelant.
+ * <p>
+ * Une erreur de décodage, y compris une {@link Error}, arrête le lot sans perdre les lignes
+ * déjà converties : elles sont écrites, puis l'erreur est levée par {@link #leverErreur()},
+ * comme en séquentiel.
+ */
+class EbcdicLot {
+
+    private final int[] debuts;
+    private final int[] longueurs;
+    private final boolean[] resteDonnees;
+    private final int[] finsLignes;
+    private final LigneSortie texte = new LigneSortie();
+    private byte[] donnees;
+    private ByteBuffer vue;
+    private int taille;
+    private int fin;
+    private int nbLignes;
+    private Throwable erreur;
+
+    EbcdicLot(int capacite) {
+        int n = Math.max(capacite, 1);
+        debuts = new int[n];
+        longueurs = new int[n];
+        resteDonnees = new boolean[n];
+        finsLignes = new int[n];
+        donnees = new byte[n * 1400];
+        vue = ByteBuffer.wrap(donnees);
+    }
+
+    /** Nombre d'enregistrements du lot. */
+    int taille() {
+        return taille;
+    }
+
+    /** Copie l'enregistrement courant du framer ; {@code resteApres} : des octets le suivent dans le fichier. */
+    void ajouter(EbcdicFramer framer, boolean resteApres) {
+        int longueur = framer.longueur();
+        if (fin + longueur > donnees.length) {
+            donnees = Arrays.copyOf(donnees, Math.max(2 * donnees.length, fin + longueur));
+            vue = ByteBuffer.wrap(donnees);
+        }
+        framer.vue().get(framer.debut(), donnees, fin, longueur);
+        debuts[taille] = fin;
+        longueurs[taille] = longueur;
+        resteDonnees[taille] = resteApres;
+        fin += longueur;
+        taille++;
+    }
+
+    /**
+     * Décode les enregistrements du lot, ou son unique enregistrement comme un en-tête
+     * ou un pied de page si {@code entete}.
+     */
+    void decoder(SicRecordConverter convertisseur, boolean entete) {
+        try {
+            if (entete) {
+                texte.ajouter(convertisseur.convertirEntete(vue, debuts[0], longueurs[0]));
+                finsLignes[nbLignes++] = texte.longueur();
+                return;
+            }
+            for (int i = 0; i < taille; i++) {
+                LigneSortie ligne = convertisseur.convertirCorps(vue, debuts[i], longueurs[i], resteDonnees[i]);
+                texte.ajouter(ligne.chars(), 0, ligne.longueur());
+                finsLignes[nbLignes++] = texte.longueur();
+            }
+        } catch (Throwable e) {
+            // Les lignes déjà converties du lot sont conservées, comme en séquentiel
+            erreur = e;
+        }
+    }
+
+    /** Écrit les lignes décodées, y compris celles qui précèdent une erreur. */
+    void ecrire(EbcdicOutputSink sortie) throws IOException {
+        int debutLigne = 0;
+        for (int i = 0; i < nbLignes; i++) {
+            sortie.ecrire(texte.chars(), debutLigne, finsLignes[i] - debutLigne);
+            sortie.nouvelleLigne();
+            debutLigne = finsLignes[i];
+        }
+    }
+
+    /** Lève l'erreur de décodage du lot, s'il y en a une. */
+    void leverErreur() throws Exception {
+        lever(erreur);
+    }
+
+    /** Vide le lot pour le réutiliser ; la capacité est conservée. */
+    void vider() {
+        taille = 0;
+        fin = 0;
+        nbLignes = 0;
+        erreur = null;
+        texte.vider();
+    }
+
+    /** Lève {@code erreur} telle quelle, Error ou Exception ; rien si null. */
+    static void lever(Throwable erreur) throws Exception {
+        if (erreur instanceof Error) {
+            throw (Error) erreur;
+        }
+        if (erreur != null) {
+            throw (Exception) erreur;
+        }
+    }
+}
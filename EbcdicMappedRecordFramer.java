@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Découpage des enregistrements directement dans le fichier projeté en mémoire.
+ * <p>
+ * Le fichier est projeté par fenêtres successives ; les enregistrements sont
+ * découpés et lus dans la projection, sans appel système ni copie par lecture.
+ * Une fenêtre est reprojetée à partir de l'enregistrement courant dès qu'elle ne
+ * peut plus contenir un enregistrement complet. Le découpage est identique à
+ * {@link EbcdicRecordFramer}.
+ */
+public class EbcdicMappedRecordFramer implements EbcdicFramer {
+
+    public static final int TAILLE_FENETRE_DEFAUT = 256 << 20;
+
+    private static final int TAILLE_MAX = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+
+    private final FileChannel canal;
+    private final long tailleFichier;
+    private final int tailleFenetre;
+
+    private MappedByteBuffer fenetre;
+    private long debutFenetre;
+    private long positionFlux;
+
+    // Enregistrement courant
+    private int debut;
+    private int longueur;
+    private long positionEnregistrement;
+
+    public EbcdicMappedRecordFramer(Path fichier) throws IOException {
+        this(fichier, TAILLE_FENETRE_DEFAUT);
+    }
+
+    public EbcdicMappedRecordFramer(Path fichier, int tailleFenetre) throws IOException {
+        this.canal = FileChannel.open(fichier, StandardOpenOption.READ);
+        this.tailleFichier = canal.size();
+        // Une fenêtre doit pouvoir contenir l'enregistrement le plus long plus un octet
+        this.tailleFenetre = Math.max(tailleFenetre, 2 * TAILLE_MAX);
+    }
+
+    @Override
+    public boolean suivant(int longueurMin) throws IOException {
+        long reste = tailleFichier - positionFlux;
+        if (reste <= 0) {
+            longueur = 0;
+            return false;
+        }
+        int aExaminer = (int) Math.min(reste, TAILLE_MAX);
+        if (fenetre == null || positionFlux + aExaminer > debutFenetre + fenetre.limit()) {
+            projeter(positionFlux);
+        }
+
+        int lecture = (int) (positionFlux - debutFenetre);
+        int limite = lecture + aExaminer;
+        int i = indexDelimiteur(fenetre, lecture + Math.max(longueurMin - 1, 0), limite);
+        int taille;
+        if (i >= 0) {
+            taille = i + 1 - lecture;
+        } else {
+            // Pas de délimiteur : fin de fichier, ou enregistrement trop long
+            EbcdicRecordFramer.verifierLongueur(reste);
+            taille = (int) reste;
+        }
+
+        debut = lecture;
+        longueur = taille;
+        positionEnregistrement = positionFlux;
+        positionFlux += taille;
+        return true;
+    }
+
+    private void projeter(long position) throws IOException {
+        long taille = Math.min(tailleFenetre, tailleFichier - position);
+        fenetre = canal.map(FileChannel.MapMode.READ_ONLY, position, taille);
+        debutFenetre = position;
+    }
+
+    private static int indexDelimiteur(ByteBuffer tampon, int depuis, int jusqua) {
+        for (int i = depuis; i < jusqua; i++) {
+            if (tampon.get(i) == EbcdicRecordFramer.DELIMITEUR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void reprendreA(long position) throws IOException {
+        if (position > tailleFichier) {
+            throw new IOException("Position de reprise au-delà de la fin du fichier : " + position);
+        }
+        positionFlux = position;
+        positionEnregistrement = position;
+        fenetre = null;
+    }
+
+    @Override
+    public long disponible() {
+        return tailleFichier - positionFlux;
+    }
+
+    @Override
+    public ByteBuffer vue() {
+        return fenetre;
+    }
+
+    @Override
+    public int debut() {
+        return debut;
+    }
+
+    @Override
+    public int longueur() {
+        return longueur;
+    }
+
+    @Override
+    public long positionEnregistrement() {
+        return positionEnregistrement;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // La projection est libérée par le GC ; fermer le canal suffit
+        canal.close();
+    }
+}
@@ -1,6 +1,8 @@
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 public class EbcdicOutils {
@@ -17,104 +19,81 @@ public class EbcdicOutils {
         }
     }
 
+    /** Mode de lecture du fichier EBCDIC ; sans effet sur le fichier produit. */
+    public enum ModeLecture {
+        /** Lecture en bloc par flux, pour toute source. */
+        FLUX,
+        /** Projection mémoire par fenêtres, pour les fichiers déjà sur disque local. */
+        PROJECTION
+    }
+
     public static boolean plcConvert(String inputFile, String outputFile) {
-        byte[] array = new byte[20000];
-        byte[] array2 = new byte[233];
-        byte[] array3 = new byte[9];
-        byte[] array4 = new byte[1156];
-        byte[] array5 = new byte[3];
-        byte[] array6 = new byte[3];
-        byte[] array7 = new byte[3];
-        byte[] array8 = new byte[3];
-        byte[] array9 = new byte[2];
-        byte[] array10 = new byte[3];
-        byte[] array11 = new byte[3];
-        byte[] array12 = new byte[100];
-        byte[] array13 = new byte[100];
-        byte[] array14 = new byte[3];
-        byte[] array15 = new byte[3];
-        byte[] array16 = new byte[8];
-
-        char paddingChar = '0';
-        int num;
-
-        try (FileInputStream fis = new FileInputStream(inputFile);
-             BufferedInputStream bis = new BufferedInputStream(fis);
-             FileWriter fw = new FileWriter(outputFile);
-             BufferedWriter bw = new BufferedWriter(fw)) {
+        return plcConvert(inputFile, outputFile, ModeLecture.FLUX);
+    }
+
+    public static EbcdicFramer ouvrirFramer(String inputFile, ModeLecture mode) throws IOException {
+        if (mode == ModeLecture.PROJECTION) {
+            return new EbcdicMappedRecordFramer(Paths.get(inputFile));
+        }
+        return new EbcdicRecordFramer(new FileInputStream(inputFile));
+    }
+
+    public static boolean plcConvert(String inputFile, String outputFile, ModeLecture mode) {
+        return plcConvert(inputFile, outputFile, mode, EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    /** Conversion avec une disposition du corps explicite (par exemple issue d'une copybook). */
+    public static boolean plcConvert(String inputFile, String outputFile, ModeLecture mode, EbcdicRecordLayout layout) {
+        return plcConvert(inputFile, outputFile, mode, layout, EbcdicOutputSink.CHARSET_DEFAUT, EbcdicOutputSink.SEPARATEUR_DEFAUT);
+    }
+
+    /** Conversion avec jeu de caractères et séparateur de ligne de sortie explicites. */
+    public static boolean plcConvert(String inputFile, String outputFile, ModeLecture mode, EbcdicRecordLayout layout,
+                                     Charset charsetSortie, String separateur) {
+        return plcConvert(inputFile, outputFile, mode, layout, charsetSortie, separateur, 0);
+    }
+
+    /**
+     * Conversion qui écrit au passage l'index des enregistrements ({@link EbcdicRecordIndex})
+     * à côté du fichier source, avec un repère tous les {@code pasIndex} enregistrements (0 : sans index).
+     */
+    public static boolean plcConvert(String inputFile, String outputFile, ModeLecture mode, EbcdicRecordLayout layout,
+                                     Charset charsetSortie, String separateur, int pasIndex) {
+        return plcConvert(inputFile, outputFile, mode, layout, charsetSortie, separateur, pasIndex, EbcdicConversionProbe.AUCUNE);
+    }
+
+    /** Conversion qui alimente {@code metriques} : temps de lecture, de décodage et d'écriture de chaque corps. */
+    public static boolean plcConvert(String inputFile, String outputFile, ModeLecture mode, EbcdicRecordLayout layout,
+                                     Charset charsetSortie, String separateur, int pasIndex,
+                                     EbcdicConversionProbe metriques) {
+        SicRecordConverter convertisseur = new SicRecordConverter(layout);
+        convertisseur.metriques(metriques);
+
+        try (EbcdicFramer framer = pasIndex > 0
+                     ? EbcdicRecordIndex.indexer(ouvrirFramer(inputFile, mode), Paths.get(inputFile), pasIndex)
+                     : ouvrirFramer(inputFile, mode);
+             EbcdicOutputSink sortie = new EbcdicOutputSink(Paths.get(outputFile), charsetSortie, separateur)) {
 
             // Lire et ignorer l'en-tête
-            int num2 = lireProchaineLigne(bis, array, (byte) 10, 10);
-            if (num2 > 0) {
-                String text = conversionEBCDICToAscii(array, true);
-                bw.write(text.trim());
-                bw.newLine();
+            if (framer.suivant(10)) {
+                sortie.ecrireLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
             }
 
             // Lire les lignes intermédiaires
-            while (bis.available() >= 1390) {
-                Arrays.fill(array, (byte) 0);
-                String text = null;
-
-                num2 = lireProchaineLigne(bis, array, (byte) 10, 1390);
-
-                verifierChamp(deplacerByteArray(array, 0, array2), array2.length, bis);
-                verifierChamp(deplacerByteArray(array, 233, array3), array3.length, bis);
-                verifierChamp(deplacerByteArray(array, 242, array4), array4.length, bis);
-                verifierChamp(deplacerByteArray(array, 1398, array5), array5.length, bis);
-                verifierChamp(deplacerByteArray(array, 1401, array6), array6.length, bis);
-                verifierChamp(deplacerByteArray(array, 1404, array7), array7.length, bis);
-                verifierChamp(deplacerByteArray(array, 1407, array8), array8.length, bis);
-                verifierChamp(deplacerByteArray(array, 1410, array9), array9.length, bis);
-                verifierChamp(deplacerByteArray(array, 1422, array10), array10.length, bis);
-                verifierChamp(deplacerByteArray(array, 1424, array11), array11.length, bis);
-                verifierChamp(deplacerByteArray(array, 1422, array12), array12.length, bis);
-                verifierChamp(deplacerByteArray(array, 1432, array13), array13.length, bis);
-                verifierChamp(deplacerByteArray(array, 1442, array14), array14.length, bis);
-                verifierChamp(deplacerByteArray(array, 1445, array15), array15.length, bis);
-                verifierChamp(deplacerByteArray(array, 1448, array16), array16.length, bis);
-
-                num = Integer.parseInt(conversionPackedToAscii(array9, 0));
-
-                text = conversionEBCDICToAscii(array2, true);
-                text += padLeft(conversionPackedToAscii(array7, 0), 5, paddingChar);
-                text += padLeft(conversionPackedToAscii(array8, 0), 2, paddingChar);
-                text += conversionEBCDICToAscii(array3, false);
-                text += conversionEBCDICToAscii(array4, true);
-                text += padLeft(conversionPackedToAscii(array5, 0), 5, paddingChar);
-                text += padLeft(conversionPackedToAscii(array6, 0), 5, paddingChar);
-                text += conversionEBCDICToAscii(array16, true);
-
-                for (int i = 0; i < num; i++) {
-                    int offset = 1448 + i * 4;
-                    verifierChamp(deplacerByteArray(array, offset, array10), array10.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset + 2, array11), array11.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset, array12), array12.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset + 10, array13), array13.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset + 20, array14), array14.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset + 23, array15), array15.length, bis);
-                    verifierChamp(deplacerByteArray(array, offset + 26, array16), array16.length, bis);
-
-                    text += padLeft(conversionPackedToAscii(array10, 0), 3, paddingChar);
-                    text += padLeft(conversionPackedToAscii(array11, 0), 15, paddingChar);
-                    text += conversionEBCDICToAscii(array12, false);
-                    text += conversionEBCDICToAscii(array13, false);
-                    text += conversionEBCDICToAscii(array14, false);
-                    text += conversionEBCDICToAscii(array15, false);
-                    text += padLeft(conversionPackedToAscii(array16, 0), 15, paddingChar);
-                }
-
-                bw.write(text);
-                bw.newLine();
+            long top = metriques.top();
+            while (framer.disponible() >= 1390) {
+                framer.suivant(1390);
+                boolean resteDonnees = framer.disponible() > 0;
+                metriques.lecture(top);
+                LigneSortie ligne = convertisseur.convertirCorps(framer.vue(), framer.debut(), framer.longueur(), resteDonnees);
+                top = metriques.top();
+                sortie.ecrireLigne(ligne);
+                top = metriques.ecriture(top);
             }
 
             // Lire et ignorer le pied de page
-            Arrays.fill(array, (byte) 0);
-            num2 = lireProchaineLigne(bis, array, (byte) 10, 10);
-            if (num2 > 0) {
-                String text3 = conversionEBCDICToAscii(array, true);
-                bw.write(text3.trim());
-                bw.newLine();
+            if (framer.suivant(10)) {
+                sortie.ecrireLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
             }
 
         } catch (Exception e) {
@@ -124,95 +103,24 @@ public class EbcdicOutils {
         return true;
     }
 
+    /**
+     * Variante historique (disposition {@link EbcdicRecordLayout#RUBAN_SIC_V2}) : en-tête et
+     * pied de page toujours écrits, compteur invalide lu comme 0.
+     */
     public static boolean plcConvert2(String inputFile, String outputFile) {
-        byte[] array = new byte[20000];
-        byte[] array2 = new byte[233];
-        byte[] array3 = new byte[9];
-        byte[] array4 = new byte[1156];
-        byte[] array5 = new byte[3];
-        byte[] array6 = new byte[3];
-        byte[] array7 = new byte[3];
-        byte[] array8 = new byte[3];
-        byte[] array9 = new byte[2];
-        byte[] array10 = new byte[3];
-        byte[] array11 = new byte[3];
-        byte[] array12 = new byte[100];
-        byte[] array13 = new byte[100];
-        byte[] array14 = new byte[3];
-        byte[] array15 = new byte[3];
-        byte[] array16 = new byte[8];
-
-        char paddingChar = '0';
-
-        try (FileInputStream fis = new FileInputStream(inputFile);
-            BufferedInputStream bis = new BufferedInputStream(fis);
-            BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile))) {
-
-            int num2 = lireProchaineLigne(bis, array, (byte)10, 10);
-            String text = conversionEBCDICToAscii(array, true).trim();
-            bw.write(text);
-            bw.newLine();
-
-            while (bis.available() >= 1390) {
-                Arrays.fill(array, (byte) 0);
-
-                num2 = lireProchaineLigne(bis, array, (byte)10, 1390);
-
-                deplacerByteArray(array, 0, array2);
-                deplacerByteArray(array, 233, array3);
-                deplacerByteArray(array, 242, array4);
-                deplacerByteArray(array, 1398, array5);
-                deplacerByteArray(array, 1401, array6);
-                deplacerByteArray(array, 1404, array7);
-                deplacerByteArray(array, 1407, array8);
-                deplacerByteArray(array, 1410, array9);
-
-                int num = 0;
-                try {
-                    num = Integer.parseInt(conversionPackedToAscii(array9, 0));
-                } catch (Exception e) {
-                    num = 0;
-                }
-
-                StringBuilder textBuilder = new StringBuilder();
-                textBuilder.append(conversionEBCDICToAscii(array2, true));
-                textBuilder.append(conversionEBCDICToAscii(array3, false));
-                textBuilder.append(conversionEBCDICToAscii(array4, true));
-                textBuilder.append(padLeft(conversionPackedToAscii(array5, 0), 5, paddingChar));
-                textBuilder.append(padLeft(conversionPackedToAscii(array6, 0), 5, paddingChar));
-                textBuilder.append(padLeft(conversionPackedToAscii(array7, 0), 5, paddingChar));
-                textBuilder.append(padLeft(conversionPackedToAscii(array8, 0), 5, paddingChar));
-                textBuilder.append(conversionEBCDICToAscii(array9, true));
-                textBuilder.append(padLeft(conversionPackedToAscii(array9, 0), 2, paddingChar));
-
-                for (int i = 0; i < num; i++) {
-                    int offset = 1448 + i * 44;
-                    deplacerByteArray(array, offset, array10);
-                    deplacerByteArray(array, offset + 2, array11);
-                    deplacerByteArray(array, offset + 4, array12);
-                    deplacerByteArray(array, offset + 14, array13);
-                    deplacerByteArray(array, offset + 24, array14);
-                    deplacerByteArray(array, offset + 27, array15);
-                    deplacerByteArray(array, offset + 30, array16);
-
-                    textBuilder.append(padLeft(conversionPackedToAscii(array10, 0), 3, paddingChar));
-                    textBuilder.append(padLeft(conversionPackedToAscii(array11, 0), 15, paddingChar));
-                    textBuilder.append(conversionEBCDICToAscii(array12, false));
-                    textBuilder.append(conversionEBCDICToAscii(array13, false));
-                    textBuilder.append(conversionEBCDICToAscii(array14, false));
-                    textBuilder.append(conversionEBCDICToAscii(array15, false));
-                    textBuilder.append(padLeft(conversionPackedToAscii(array16, 0), 15, paddingChar));
-                }
-
-                bw.write(textBuilder.toString());
-                bw.newLine();
+        SicRecordConverter convertisseur = new SicRecordConverter(EbcdicRecordLayout.RUBAN_SIC_V2);
+
+        try (EbcdicFramer framer = ouvrirFramer(inputFile, ModeLecture.FLUX);
+             EbcdicOutputSink sortie = new EbcdicOutputSink(Paths.get(outputFile))) {
+
+            sortie.ecrireLigne(convertirEnteteOuVide(framer, convertisseur));
+
+            while (framer.disponible() >= 1390) {
+                framer.suivant(1390);
+                sortie.ecrireLigne(convertisseur.convertirCorps(framer.vue(), framer.debut(), framer.longueur(), framer.disponible() > 0));
             }
 
-            Arrays.fill(array, (byte) 0);
-            num2 = lireProchaineLigne(bis, array, (byte)10, 10);
-            text = conversionEBCDICToAscii(array, true).trim();
-            bw.write(text);
-            bw.newLine();
+            sortie.ecrireLigne(convertirEnteteOuVide(framer, convertisseur));
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -222,82 +130,58 @@ public class EbcdicOutils {
         return true;
     }
 
-
-    public static void verifierChamp(int tailleCopiee, int tailleAttendue, InputStream is) throws IOException {
-        if (tailleCopiee < tailleAttendue && is.available() > 0) {
-            throw new IOException("Longueur d’un champ invalide.");
+    // Un enregistrement absent est converti comme un tampon vide
+    private static String convertirEnteteOuVide(EbcdicFramer framer, SicRecordConverter convertisseur) throws IOException {
+        if (framer.suivant(10)) {
+            return convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur());
         }
+        return convertisseur.convertirEntete(ByteBuffer.allocate(0), 0, 0);
     }
 
-    public static String conversionEBCDICToAscii(byte[] ebcdicBytes, boolean printableOnly) {
-        if (ebcdicBytes == null) return "";
-
-        byte QUESTION_MARK = (byte) 0x6D;
-        byte SQUARE_BRACKET = (byte) 0xBA;
-        byte WEIRD1 = (byte) 0x95;
-        byte CIRCUMFLEX = (byte) 0xB0;
-        byte PIPE = (byte) 0x79;
-        byte BROKEN_BAR = (byte) 0x8C;
-
-        // Remplacement sélectif comme dans le C#
-        if (contains(ebcdicBytes, SQUARE_BRACKET)) {
-            ebcdicBytes = replaceByte(ebcdicBytes, SQUARE_BRACKET, QUESTION_MARK);
-        }
-        if (contains(ebcdicBytes, CIRCUMFLEX) || contains(ebcdicBytes, PIPE)) {
-            ebcdicBytes = replaceByte(ebcdicBytes, CIRCUMFLEX, QUESTION_MARK);
-            ebcdicBytes = replaceByte(ebcdicBytes, PIPE, QUESTION_MARK);
-        }
-        if (contains(ebcdicBytes, BROKEN_BAR)) {
-            ebcdicBytes = replaceByte(ebcdicBytes, BROKEN_BAR, PIPE);
-        }
-        if (contains(ebcdicBytes, WEIRD1)) {
-            ebcdicBytes = replaceByte(ebcdicBytes, WEIRD1, CIRCUMFLEX);
-        }
 
-        Charset ebcdicCharset = Charset.forName("Cp037");
-        String text = new String(ebcdicBytes, ebcdicCharset);
+    public static void verifierChamp(int tailleCopiee, int tailleAttendue, InputStream is) throws IOException {
+        verifierChamp(tailleCopiee, tailleAttendue, tailleCopiee < tailleAttendue && is.available() > 0);
+    }
 
-        if (printableOnly) {
-            // Seuls les caractères imprimables ASCII
-            text = text.replaceAll("[^\\x20-\\x7E]", "?");
+    public static void verifierChamp(int tailleCopiee, int tailleAttendue, boolean resteDonnees) throws IOException {
+        if (tailleCopiee < tailleAttendue && resteDonnees) {
+            throw new IOException("Longueur d’un champ invalide.");
         }
+    }
 
-        return text;
+    /**
+     * verifierChamp d'un champ qui se termine à {@code fin} dans l'enregistrement, lu sur le
+     * tampon historique de 20000 octets : tronqué au-delà, il est invalide si des données
+     * suivent l'enregistrement.
+     */
+    public static void verifierChamp(int fin, boolean resteDonnees) throws IOException {
+        verifierChamp(EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX, fin, resteDonnees);
     }
 
-    private static boolean contains(byte[] array, byte target) {
-        for (byte b : array) {
-            if (b == target) return true;
-        }
-        return false;
+    public static int extraireChamp(EbcdicFramer framer, int offset, byte[] dest) {
+        return extraireChamp(framer.vue(), framer.debut(), framer.longueur(), offset, dest);
     }
 
-    private static byte[] replaceByte(byte[] array, byte from, byte to) {
-        byte[] result = Arrays.copyOf(array, array.length);
-        for (int i = 0; i < result.length; i++) {
-            if (result[i] == from) result[i] = to;
-        }
-        return result;
+    /**
+     * Copie un champ de l'enregistrement [debut, debut + longueur) de la vue (tampon du framer
+     * ou projection, sans copie de l'enregistrement), complété par des zéros au-delà
+     * de la fin de l'enregistrement (comme l'ancien tampon de 20000 octets remis à zéro).
+     * Retourne la longueur que deplacerByteArray aurait copiée depuis ce tampon.
+     */
+    public static int extraireChamp(ByteBuffer vue, int debut, int longueur, int offset, byte[] dest) {
+        int tailleTampon = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+        if (offset >= tailleTampon) return -1;
+        int copie = Math.max(0, Math.min(dest.length, longueur - offset));
+        if (copie > 0) {
+            vue.get(debut + offset, dest, 0, copie);
+        }
+        Arrays.fill(dest, copie, dest.length, (byte) 0);
+        return Math.min(dest.length, tailleTampon - offset);
     }
 
     public static String conversionEBCDICToAscii(byte[] ebcdicBytes, boolean printableOnly) {
-        if (ebcdicBytes == null) return "";
-
-        Charset ebcdicCharset = Charset.forName("Cp037");
-        String text = new String(ebcdicBytes, ebcdicCharset);
-
-        // Remplacements d'après la logique C#
-        text = text.replace('[', '?');       // SQUARE_BRACKET
-        text = text.replace('^', '?');       // CIRCUMFLEX
-        text = text.replace('|', '?');       // PIPE
-        text = text.replace('¬', '|');       // BROKEN_BAR
-        text = text.replace('\u0095', '^');  // WEIRD1
-
-        if (printableOnly) {
-            text = text.replaceAll("[^\\x20-\\x7E]", "?");
-        }
-
-        return text;
+        // Substitutions C# et masquage des non imprimables déjà intégrés dans la table du codec
+        return EbcdicCodec.de(EbcdicCodec.Profil.CSHARP, printableOnly).decode(ebcdicBytes);
     }
 
 
@@ -0,0 +1,170 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sortie du fichier converti : les caractères décodés sont encodés directement dans un
+ * grand tampon direct réutilisé, vidé par un FileChannel.
+ * <p>
+ * Le jeu de caractères et le séparateur de ligne sont explicites : le fichier produit ne
+ * dépend plus de la JVM. ISO-8859-1, US-ASCII et UTF-8 sont encodés sans CharsetEncoder
+ * (les caractères Cp037 sont tous compris entre U+0000 et U+00FF) ; les autres jeux de
+ * caractères passent par un encodeur, les caractères non représentables devenant '?'.
+ */
+public class EbcdicOutputSink implements Closeable {
+
+    public static final Charset CHARSET_DEFAUT = StandardCharsets.UTF_8;
+    public static final String SEPARATEUR_DEFAUT = "\n";
+    public static final int TAILLE_TAMPON_DEFAUT = 1 << 20;
+
+    /** Séparateur de ligne, tel que choisi en configuration. */
+    public enum FinLigne {
+        LF("\n"),
+        CRLF("\r\n");
+
+        private final String separateur;
+
+        FinLigne(String separateur) {
+            this.separateur = separateur;
+        }
+
+        public String separateur() {
+            return separateur;
+        }
+    }
+
+    private static final int LATIN1 = 0;
+    private static final int ASCII = 1;
+    private static final int UTF8 = 2;
+    private static final int AUTRE = 3;
+
+    private final FileChannel canal;
+    private final ByteBuffer tampon;
+    private final int encodage;
+    private final CharsetEncoder encodeur;
+    private final byte[] separateur;
+
+    public EbcdicOutputSink(Path fichier) throws IOException {
+        this(fichier, CHARSET_DEFAUT, SEPARATEUR_DEFAUT, TAILLE_TAMPON_DEFAUT);
+    }
+
+    public EbcdicOutputSink(Path fichier, Charset charset, String separateur) throws IOException {
+        this(fichier, charset, separateur, TAILLE_TAMPON_DEFAUT);
+    }
+
+    public EbcdicOutputSink(Path fichier, Charset charset, String separateur, int tailleTampon) throws IOException {
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            encodage = LATIN1;
+        } else if (charset.equals(StandardCharsets.US_ASCII)) {
+            encodage = ASCII;
+        } else if (charset.equals(StandardCharsets.UTF_8)) {
+            encodage = UTF8;
+        } else {
+            encodage = AUTRE;
+        }
+        this.encodeur = encodage == AUTRE
+                ? charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                : null;
+        this.separateur = separateur.getBytes(charset);
+        this.tampon = ByteBuffer.allocateDirect(Math.max(tailleTampon, 1 << 16));
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void ecrire(char[] chars, int offset, int longueur) throws IOException {
+        if (encodage == AUTRE) {
+            encoder(CharBuffer.wrap(chars, offset, longueur));
+            return;
+        }
+        int i = offset;
+        int fin = offset + longueur;
+        while (i < fin) {
+            // Au plus 3 octets par caractère : on vide quand la place peut manquer
+            int lot = Math.min(fin - i, tampon.remaining() / 3);
+            if (lot == 0) {
+                vider();
+                continue;
+            }
+            for (int n = i + lot; i < n; i++) {
+                char c = chars[i];
+                if (c < 0x80) {
+                    tampon.put((byte) c);
+                } else if (encodage == LATIN1) {
+                    tampon.put(c <= 0xFF ? (byte) c : (byte) '?');
+                } else if (encodage == ASCII) {
+                    tampon.put((byte) '?');
+                } else if (c < 0x800) {
+                    tampon.put((byte) (0xC0 | (c >> 6)));
+                    tampon.put((byte) (0x80 | (c & 0x3F)));
+                } else {
+                    tampon.put((byte) (0xE0 | (c >> 12)));
+                    tampon.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    tampon.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+
+    public void ecrire(LigneSortie ligne) throws IOException {
+        ecrire(ligne.chars(), 0, ligne.longueur());
+    }
+
+    public void ecrire(String texte) throws IOException {
+        ecrire(texte.toCharArray(), 0, texte.length());
+    }
+
+    public void nouvelleLigne() throws IOException {
+        if (tampon.remaining() < separateur.length) {
+            vider();
+        }
+        tampon.put(separateur);
+    }
+
+    public void ecrireLigne(LigneSortie ligne) throws IOException {
+        ecrire(ligne);
+        nouvelleLigne();
+    }
+
+    public void ecrireLigne(String texte) throws IOException {
+        ecrire(texte);
+        nouvelleLigne();
+    }
+
+    /** Écrit le contenu du tampon dans le fichier. */
+    public void vider() throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vider();
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void encoder(CharBuffer source) throws IOException {
+        encodeur.reset();
+        while (encodeur.encode(source, tampon, true).isOverflow()) {
+            vider();
+        }
+        while (encodeur.flush(tampon).isOverflow()) {
+            vider();
+        }
+    }
+}
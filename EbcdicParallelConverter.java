@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Conversion parallèle d'un fichier ruban SIC.
+ * <p>
+ * Le découpage reste séquentiel (la règle de longueur minimale impose de lire le fichier
+ * dans l'ordre), mais il ne fait que chercher les délimiteurs. Les enregistrements du corps
+ * sont regroupés par lots de {@code tailleLot}, décodés sur l'exécuteur, puis écrits dans
+ * l'ordre d'origine. Le fichier produit est identique à celui de
+ * {@link EbcdicOutils#plcConvert(String, String)}, y compris en cas d'échec : les lignes
+ * précédant l'enregistrement en erreur sont écrites, puis la conversion s'arrête.
+ */
+public class EbcdicParallelConverter {
+
+    public static final int TAILLE_LOT_DEFAUT = 512;
+
+    private final int parallelisme;
+    private final int tailleLot;
+    private final ExecutorService executeur;
+    private final EbcdicRecordLayout layout;
+
+    // Un convertisseur par thread de décodage
+    private final ThreadLocal<SicRecordConverter> convertisseurs;
+    private EbcdicConversionProbe metriques = EbcdicConversionProbe.AUCUNE;
+
+    public EbcdicParallelConverter() {
+        this(Runtime.getRuntime().availableProcessors(), TAILLE_LOT_DEFAUT);
+    }
+
+    /** Utilise un ForkJoinPool dédié de {@code parallelisme} threads, créé à chaque conversion. */
+    public EbcdicParallelConverter(int parallelisme, int tailleLot) {
+        this(parallelisme, tailleLot, null);
+    }
+
+    /** Utilise l'exécuteur fourni, qui n'est pas arrêté en fin de conversion. */
+    public EbcdicParallelConverter(int parallelisme, int tailleLot, ExecutorService executeur) {
+        this(parallelisme, tailleLot, executeur, EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    /** Exécuteur optionnel (null : pool dédié) et disposition du corps explicite. */
+    public EbcdicParallelConverter(int parallelisme, int tailleLot, ExecutorService executeur, EbcdicRecordLayout layout) {
+        if (parallelisme < 1 || tailleLot < 1) {
+            throw new IllegalArgumentException("Parallélisme et taille de lot doivent être positifs");
+        }
+        this.parallelisme = parallelisme;
+        this.tailleLot = tailleLot;
+        this.executeur = executeur;
+        this.layout = layout;
+        this.convertisseurs = ThreadLocal.withInitial(() -> new SicRecordConverter(this.layout));
+    }
+
+    /** Métriques alimentées par les conversions suivantes, partagées par les threads de décodage. */
+    public void metriques(EbcdicConversionProbe metriques) {
+        this.metriques = metriques;
+    }
+
+    public boolean convertir(String inputFile, String outputFile, EbcdicOutils.ModeLecture mode) {
+        return convertir(inputFile, outputFile, mode, EbcdicOutputSink.CHARSET_DEFAUT, EbcdicOutputSink.SEPARATEUR_DEFAUT);
+    }
+
+    public boolean convertir(String inputFile, String outputFile, EbcdicOutils.ModeLecture mode,
+                             Charset charsetSortie, String separateur) {
+        ExecutorService pool = executeur != null ? executeur : new ForkJoinPool(parallelisme);
+        try (EbcdicFramer framer = EbcdicOutils.ouvrirFramer(inputFile, mode);
+             EbcdicOutputSink sortie = new EbcdicOutputSink(Paths.get(outputFile), charsetSortie, separateur)) {
+
+            SicRecordConverter convertisseur = convertisseurs.get();
+
+            // En-tête
+            if (framer.suivant(10)) {
+                sortie.ecrireLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
+            }
+
+            // Corps : au plus 2 lots par thread en vol pour borner la mémoire
+            Deque<Future<EbcdicLot>> enCours = new ArrayDeque<>();
+            EbcdicLot lot = new EbcdicLot(tailleLot);
+            IOException erreurLecture = null;
+            while (true) {
+                try {
+                    long top = metriques.top();
+                    if (framer.disponible() < 1390) {
+                        break;
+                    }
+                    framer.suivant(1390);
+                    lot.ajouter(framer, framer.disponible() > 0);
+                    metriques.lecture(top);
+                } catch (IOException e) {
+                    // Les enregistrements découpés avant l'erreur sont écrits, comme en séquentiel
+                    erreurLecture = e;
+                    break;
+                }
+                if (lot.taille() == tailleLot) {
+                    EbcdicLot aDecoder = lot;
+                    enCours.addLast(pool.submit(() -> decoder(aDecoder)));
+                    lot = new EbcdicLot(tailleLot);
+                    if (enCours.size() >= 2 * parallelisme) {
+                        ecrire(enCours.removeFirst(), sortie, metriques);
+                    }
+                }
+            }
+            if (lot.taille() > 0) {
+                EbcdicLot aDecoder = lot;
+                enCours.addLast(pool.submit(() -> decoder(aDecoder)));
+            }
+            while (!enCours.isEmpty()) {
+                ecrire(enCours.removeFirst(), sortie, metriques);
+            }
+            if (erreurLecture != null) {
+                throw erreurLecture;
+            }
+
+            // Pied de page
+            if (framer.suivant(10)) {
+                sortie.ecrireLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (executeur == null) {
+                pool.shutdownNow();
+            }
+        }
+        return true;
+    }
+
+    private EbcdicLot decoder(EbcdicLot lot) {
+        SicRecordConverter convertisseur = convertisseurs.get();
+        convertisseur.metriques(metriques);
+        lot.decoder(convertisseur, false);
+        return lot;
+    }
+
+    private static void ecrire(Future<EbcdicLot> future, EbcdicOutputSink sortie,
+                               EbcdicConversionProbe metriques) throws Exception {
+        EbcdicLot lot;
+        try {
+            lot = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Échec du décodage d'un lot", e.getCause());
+        }
+        // Attente du décodage exclue du temps d'écriture
+        long top = metriques.top();
+        lot.ecrire(sortie);
+        metriques.ecriture(top);
+        lot.leverErreur();
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flux lu au fil du téléchargement : un thread producteur copie la source (flux MFT)
+ * dans un anneau borné pendant que le découpage et le décodage consomment l'anneau.
+ * Le téléchargement réseau et la conversion avancent en parallèle, sans fichier
+ * temporaire ; un consommateur plus lent que le réseau bloque le producteur une fois
+ * l'anneau plein.
+ * <p>
+ * {@link #available()} attend que l'anneau contienne au moins {@link #SEUIL_DISPONIBLE}
+ * octets ou que la source soit épuisée : la condition de plcConvert
+ * ({@code available() >= 1390}) garde le même résultat que sur un fichier local, alors
+ * qu'un flux réseau ne connaît pas la taille restante.
+ * <p>
+ * Une erreur de lecture de la source est relevée par le prochain appel du consommateur.
+ */
+public class EbcdicPipeInputStream extends InputStream {
+
+    public static final int CAPACITE_DEFAUT = 4 << 20;
+    /** Au-delà, {@link #available()} répond sans attendre : couvre tout enregistrement. */
+    public static final int SEUIL_DISPONIBLE = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+
+    private final InputStream source;
+    private final byte[] anneau;
+    private final Thread producteur;
+
+    // Données valides : remplis octets à partir de lecture (modulo la capacité)
+    private int lecture;
+    private int remplis;
+    private boolean finSource;
+    private boolean ferme;
+    private IOException erreur;
+
+    public EbcdicPipeInputStream(InputStream source) {
+        this(source, CAPACITE_DEFAUT);
+    }
+
+    public EbcdicPipeInputStream(InputStream source, int capacite) {
+        this.source = source;
+        this.anneau = new byte[Math.max(capacite, 2 * SEUIL_DISPONIBLE)];
+        this.producteur = new Thread(this::produire, "ebcdic-telechargement");
+        producteur.setDaemon(true);
+        producteur.start();
+    }
+
+    private void produire() {
+        try {
+            while (true) {
+                int ecriture;
+                int place;
+                synchronized (this) {
+                    while (remplis == anneau.length && !ferme) {
+                        wait();
+                    }
+                    if (ferme) {
+                        return;
+                    }
+                    ecriture = (lecture + remplis) % anneau.length;
+                    place = Math.min(anneau.length - remplis, anneau.length - ecriture);
+                }
+                // Hors verrou : la zone libre n'est jamais lue par le consommateur
+                int lus = source.read(anneau, ecriture, place);
+                if (lus < 0) {
+                    return;
+                }
+                synchronized (this) {
+                    remplis += lus;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                erreur = e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                finSource = true;
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] octet = new byte[1];
+        return read(octet, 0, 1) < 0 ? -1 : octet[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        attendre(1);
+        if (remplis == 0) {
+            return -1;
+        }
+        int n = Math.min(len, Math.min(remplis, anneau.length - lecture));
+        System.arraycopy(anneau, lecture, b, off, n);
+        lecture = (lecture + n) % anneau.length;
+        remplis -= n;
+        notifyAll();
+        return n;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        attendre(SEUIL_DISPONIBLE);
+        return remplis;
+    }
+
+    // Attend au moins n octets dans l'anneau ou la fin de la source
+    private void attendre(int n) throws IOException {
+        try {
+            while (remplis < n && !finSource && !ferme) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lecture du flux EBCDIC interrompue", e);
+        }
+        if (erreur != null) {
+            throw new IOException("Échec de lecture du flux EBCDIC source", erreur);
+        }
+        if (ferme) {
+            throw new IOException("Flux EBCDIC fermé");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            notifyAll();
+        }
+        // Débloque un producteur en attente de la source
+        producteur.interrupt();
+        source.close();
+    }
+}
@@ -0,0 +1,423 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conversion d'un fichier ruban SIC en trois étages qui se recouvrent : un thread de
+ * lecture découpe les enregistrements dans des lots recyclés, des threads de décodage les
+ * convertissent, et le thread appelant écrit les lots dans l'ordre du fichier.
+ * <p>
+ * Les lots libres forment une file bornée : la lecture attend qu'un lot soit écrit et
+ * rendu avant d'en remplir un autre, ce qui borne la mémoire et ralentit la lecture au
+ * rythme de l'étage le plus lent. Le fichier produit est identique à celui de
+ * {@link EbcdicOutils#plcConvert(String, String)}, y compris en cas d'échec.
+ * <p>
+ * {@link #statistiques()} expose le temps passé par chaque étage et la profondeur des
+ * files, pour repérer l'étage limitant sur une machine donnée. Les mêmes temps, avec
+ * le détail du décodage, alimentent les métriques ({@link EbcdicConversionProbe}) fournies par
+ * {@link #metriques}.
+ */
+public class EbcdicPipelineConverter {
+
+    public static final int TAILLE_LOT_DEFAUT = 512;
+
+    // Marqueur de fin dans les files
+    private static final Lot FIN = new Lot(0);
+
+    private final int decodeurs;
+    private final int tailleLot;
+    private final int lotsEnVol;
+    private final EbcdicRecordLayout layout;
+
+    private volatile Statistiques statistiques = new Statistiques();
+    private EbcdicConversionProbe metriques = EbcdicConversionProbe.AUCUNE;
+
+    public EbcdicPipelineConverter() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 2), TAILLE_LOT_DEFAUT, EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    public EbcdicPipelineConverter(int decodeurs, int tailleLot, EbcdicRecordLayout layout) {
+        if (decodeurs < 1 || tailleLot < 1) {
+            throw new IllegalArgumentException("Nombre de décodeurs et taille de lot doivent être positifs");
+        }
+        this.decodeurs = decodeurs;
+        this.tailleLot = tailleLot;
+        // Un lot en lecture, un en écriture, deux par décodeur
+        this.lotsEnVol = 2 * decodeurs + 2;
+        this.layout = layout;
+    }
+
+    /** Métriques alimentées par les conversions suivantes, en plus des {@link #statistiques}. */
+    public void metriques(EbcdicConversionProbe metriques) {
+        this.metriques = metriques;
+    }
+
+    /** Statistiques de la conversion en cours, ou de la dernière conversion. */
+    public Statistiques statistiques() {
+        return statistiques;
+    }
+
+    public boolean convertir(String inputFile, String outputFile, EbcdicOutils.ModeLecture mode) {
+        return convertir(inputFile, outputFile, mode, EbcdicOutputSink.CHARSET_DEFAUT, EbcdicOutputSink.SEPARATEUR_DEFAUT);
+    }
+
+    public boolean convertir(String inputFile, String outputFile, EbcdicOutils.ModeLecture mode,
+                             Charset charsetSortie, String separateur) {
+        try (EbcdicFramer framer = EbcdicOutils.ouvrirFramer(inputFile, mode);
+             EbcdicOutputSink sortie = new EbcdicOutputSink(Paths.get(outputFile), charsetSortie, separateur)) {
+            convertir(framer, sortie);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Conversion entre un framer et une sortie ouverts par l'appelant, qui les ferme.
+     * La première erreur de lecture, de décodage ou d'écriture est levée une fois les
+     * threads de lecture et de décodage arrêtés.
+     */
+    void convertir(EbcdicFramer framer, EbcdicOutputSink sortie) throws Exception {
+        Execution execution = new Execution(framer);
+        statistiques = execution.statistiques;
+        execution.executer(sortie);
+    }
+
+    /** Files, lots et threads d'une conversion. */
+    private final class Execution {
+
+        private final EbcdicFramer framer;
+        private final BlockingQueue<Lot> libres = new ArrayBlockingQueue<>(lotsEnVol);
+        // Capacités au-delà du nombre de lots en vol : seuls les lots libres bloquent
+        private final BlockingQueue<Lot> aDecoder = new ArrayBlockingQueue<>(lotsEnVol + decodeurs);
+        private final BlockingQueue<Lot> aEcrire = new ArrayBlockingQueue<>(lotsEnVol + 1);
+        private final Statistiques statistiques = new Statistiques(libres, aDecoder, aEcrire);
+        private final List<Thread> threads = new ArrayList<>();
+        private int lotsCrees;
+        // Toute erreur du thread de lecture, levée par l'écriture une fois les lots lus écrits
+        private volatile Throwable erreurLecture;
+
+        Execution(EbcdicFramer framer) {
+            this.framer = framer;
+        }
+
+        void executer(EbcdicOutputSink sortie) throws Exception {
+            threads.add(new Thread(this::lire, "ebcdic-lecture"));
+            for (int i = 0; i < decodeurs; i++) {
+                threads.add(new Thread(this::decoder, "ebcdic-decodage-" + i));
+            }
+            for (Thread thread : threads) {
+                thread.setDaemon(true);
+                thread.start();
+            }
+            try {
+                ecrire(sortie);
+            } finally {
+                // En cas d'échec, la lecture et le décodage s'arrêtent ; le framer n'est fermé
+                // qu'une fois le thread de lecture terminé
+                for (Thread thread : threads) {
+                    thread.interrupt();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+        }
+
+        private void lire() {
+            Lot lot = null;
+            try {
+                try {
+                    // En-tête et pied de page passent par les mêmes files, pour rester dans l'ordre
+                    if (framer.suivant(10)) {
+                        publier(enregistrementSeul());
+                    }
+                    while (true) {
+                        long debut = System.nanoTime();
+                        if (framer.disponible() < 1390) {
+                            break;
+                        }
+                        framer.suivant(1390);
+                        boolean resteDonnees = framer.disponible() > 0;
+                        lu(System.nanoTime() - debut);
+                        if (lot == null) {
+                            lot = prendreLot();
+                        }
+                        debut = System.nanoTime();
+                        lot.ajouter(framer, resteDonnees);
+                        lu(System.nanoTime() - debut);
+                        if (lot.taille() == tailleLot) {
+                            publier(lot);
+                            lot = null;
+                        }
+                    }
+                    if (lot != null) {
+                        publier(lot);
+                        lot = null;
+                    }
+                    if (framer.suivant(10)) {
+                        publier(enregistrementSeul());
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    // Les enregistrements découpés avant l'erreur sont écrits, comme en séquentiel
+                    erreurLecture = e;
+                    if (lot != null) {
+                        publier(lot);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Arrêt demandé par l'écriture
+            } finally {
+                // Ne bloque jamais : les files dépassent le nombre de lots en vol
+                aEcrire.offer(FIN);
+                for (int i = 0; i < decodeurs; i++) {
+                    aDecoder.offer(FIN);
+                }
+            }
+        }
+
+        private void lu(long nanos) {
+            statistiques.nanosLecture.add(nanos);
+            metriques.ajouterLecture(nanos);
+        }
+
+        private Lot enregistrementSeul() throws InterruptedException {
+            Lot lot = prendreLot();
+            lot.entete = true;
+            lot.ajouter(framer, false);
+            return lot;
+        }
+
+        private Lot prendreLot() throws InterruptedException {
+            Lot lot = libres.poll();
+            if (lot == null) {
+                if (lotsCrees < lotsEnVol) {
+                    lotsCrees++;
+                    return new Lot(tailleLot);
+                }
+                long debut = System.nanoTime();
+                lot = libres.take();
+                statistiques.nanosAttenteLotLibre.add(System.nanoTime() - debut);
+            }
+            return lot;
+        }
+
+        private void publier(Lot lot) throws InterruptedException {
+            aEcrire.put(lot);
+            aDecoder.put(lot);
+            statistiques.noterProfondeurs(aDecoder.size(), aEcrire.size());
+        }
+
+        private void decoder() {
+            SicRecordConverter convertisseur = new SicRecordConverter(layout);
+            convertisseur.metriques(metriques);
+            try {
+                while (true) {
+                    Lot lot = aDecoder.take();
+                    if (lot == FIN) {
+                        return;
+                    }
+                    long debut = System.nanoTime();
+                    lot.decoder(convertisseur);
+                    statistiques.nanosDecodage.add(System.nanoTime() - debut);
+                    statistiques.enregistrements.add(lot.taille());
+                    lot.terminer();
+                }
+            } catch (InterruptedException e) {
+                // Arrêt demandé par l'écriture
+            }
+        }
+
+        private void ecrire(EbcdicOutputSink sortie) throws Exception {
+            while (true) {
+                long debut = System.nanoTime();
+                Lot lot = aEcrire.take();
+                statistiques.nanosAttenteLecture.add(System.nanoTime() - debut);
+                if (lot == FIN) {
+                    break;
+                }
+                debut = System.nanoTime();
+                lot.attendreDecodage();
+                statistiques.nanosAttenteDecodage.add(System.nanoTime() - debut);
+
+                debut = System.nanoTime();
+                lot.ecrire(sortie);
+                long nanosEcriture = System.nanoTime() - debut;
+                statistiques.nanosEcriture.add(nanosEcriture);
+                metriques.ajouterEcriture(nanosEcriture);
+                statistiques.lots.increment();
+                lot.leverErreur();
+                lot.vider();
+                libres.put(lot);
+            }
+            EbcdicLot.lever(erreurLecture);
+        }
+    }
+
+    /** Lot recyclé après écriture, décodé par un thread de décodage pendant que l'écriture l'attend. */
+    private static final class Lot extends EbcdicLot {
+        // En-tête ou pied de page : un seul enregistrement, décodé comme tel
+        private boolean entete;
+        private boolean decode;
+
+        Lot(int capacite) {
+            super(capacite);
+        }
+
+        void decoder(SicRecordConverter convertisseur) {
+            decoder(convertisseur, entete);
+        }
+
+        synchronized void terminer() {
+            decode = true;
+            notifyAll();
+        }
+
+        synchronized void attendreDecodage() throws InterruptedException {
+            while (!decode) {
+                wait();
+            }
+        }
+
+        @Override
+        synchronized void vider() {
+            super.vider();
+            entete = false;
+            decode = false;
+        }
+    }
+
+    /**
+     * Temps cumulé par étage et profondeur des files. Un thread de lecture souvent en attente
+     * de lot libre indique que le décodage ou l'écriture limite ; une écriture souvent en
+     * attente de décodage, que les décodeurs limitent ; une écriture en attente de lecture,
+     * que la lecture du fichier limite.
+     */
+    public static final class Statistiques {
+        private final LongAdder lots = new LongAdder();
+        private final LongAdder enregistrements = new LongAdder();
+        private final LongAdder nanosLecture = new LongAdder();
+        private final LongAdder nanosAttenteLotLibre = new LongAdder();
+        private final LongAdder nanosDecodage = new LongAdder();
+        private final LongAdder nanosAttenteLecture = new LongAdder();
+        private final LongAdder nanosAttenteDecodage = new LongAdder();
+        private final LongAdder nanosEcriture = new LongAdder();
+        private final BlockingQueue<?> libres;
+        private final BlockingQueue<?> aDecoder;
+        private final BlockingQueue<?> aEcrire;
+        private volatile int profondeurMaxDecodage;
+        private volatile int profondeurMaxEcriture;
+
+        Statistiques() {
+            this(null, null, null);
+        }
+
+        Statistiques(BlockingQueue<?> libres, BlockingQueue<?> aDecoder, BlockingQueue<?> aEcrire) {
+            this.libres = libres;
+            this.aDecoder = aDecoder;
+            this.aEcrire = aEcrire;
+        }
+
+        // Appelé par le seul thread de lecture
+        void noterProfondeurs(int decodage, int ecriture) {
+            if (decodage > profondeurMaxDecodage) {
+                profondeurMaxDecodage = decodage;
+            }
+            if (ecriture > profondeurMaxEcriture) {
+                profondeurMaxEcriture = ecriture;
+            }
+        }
+
+        public long lots() {
+            return lots.sum();
+        }
+
+        public long enregistrements() {
+            return enregistrements.sum();
+        }
+
+        /** Découpage et copie des enregistrements, hors attente d'un lot libre. */
+        public Duration tempsLecture() {
+            return Duration.ofNanos(nanosLecture.sum());
+        }
+
+        public Duration tempsAttenteLotLibre() {
+            return Duration.ofNanos(nanosAttenteLotLibre.sum());
+        }
+
+        /** Cumulé sur tous les threads de décodage. */
+        public Duration tempsDecodage() {
+            return Duration.ofNanos(nanosDecodage.sum());
+        }
+
+        public Duration tempsAttenteLecture() {
+            return Duration.ofNanos(nanosAttenteLecture.sum());
+        }
+
+        public Duration tempsAttenteDecodage() {
+            return Duration.ofNanos(nanosAttenteDecodage.sum());
+        }
+
+        public Duration tempsEcriture() {
+            return Duration.ofNanos(nanosEcriture.sum());
+        }
+
+        public int lotsLibres() {
+            return libres == null ? 0 : libres.size();
+        }
+
+        public int profondeurDecodage() {
+            return aDecoder == null ? 0 : aDecoder.size();
+        }
+
+        public int profondeurEcriture() {
+            return aEcrire == null ? 0 : aEcrire.size();
+        }
+
+        public int profondeurMaxDecodage() {
+            return profondeurMaxDecodage;
+        }
+
+        public int profondeurMaxEcriture() {
+            return profondeurMaxEcriture;
+        }
+
+        /**
+         * Valeurs courantes sous des clés stables (temps en millisecondes), par exemple pour
+         * le contexte d'exécution du step.
+         */
+        public Map<String, Long> valeurs() {
+            Map<String, Long> valeurs = new LinkedHashMap<>();
+            valeurs.put("lots", lots());
+            valeurs.put("enregistrements", enregistrements());
+            valeurs.put("lecture.ms", tempsLecture().toMillis());
+            valeurs.put("attente-lot-libre.ms", tempsAttenteLotLibre().toMillis());
+            valeurs.put("decodage.ms", tempsDecodage().toMillis());
+            valeurs.put("ecriture.ms", tempsEcriture().toMillis());
+            valeurs.put("attente-lecture.ms", tempsAttenteLecture().toMillis());
+            valeurs.put("attente-decodage.ms", tempsAttenteDecodage().toMillis());
+            valeurs.put("file-decodage.max", (long) profondeurMaxDecodage);
+            valeurs.put("file-ecriture.max", (long) profondeurMaxEcriture);
+            return valeurs;
+        }
+
+        @Override
+        public String toString() {
+            return "lots=" + lots() + ", enregistrements=" + enregistrements()
+                + ", lecture=" + tempsLecture().toMillis() + "ms (attente lot libre " + tempsAttenteLotLibre().toMillis() + "ms)"
+                + ", décodage=" + tempsDecodage().toMillis() + "ms"
+                + ", écriture=" + tempsEcriture().toMillis() + "ms (attente lecture " + tempsAttenteLecture().toMillis()
+                + "ms, attente décodage " + tempsAttenteDecodage().toMillis() + "ms)"
+                + ", files max décodage/écriture=" + profondeurMaxDecodage + "/" + profondeurMaxEcriture;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * Découpe un fichier ruban SIC en plages d'octets pour un step partitionné.
+ * <p>
+ * Le fichier est parcouru une fois pour repérer les débuts d'enregistrement (découpage
+ * seul, sans décodage) ; les plages commencent toujours sur un début d'enregistrement du
+ * corps, au plus près de {@code taille / gridSize} octets. La première plage porte l'en-tête,
+ * la dernière le pied de page. Chaque partition lit sa plage avec un
+ * {@link EbcdicRubanSicItemReader} borné et sauvegarde sa propre position : elle est
+ * relancée indépendamment des autres.
+ * <p>
+ * Avec un pas d'index, le parcours écrit l'index des enregistrements à côté du fichier
+ * ({@link EbcdicRecordIndex}) ; un nouveau découpage du même fichier (relance, autre
+ * nombre de partitions) se fait alors sans le relire, les plages commençant sur un repère.
+ */
+public class EbcdicRangePartitioner implements Partitioner {
+
+    public static final String CLE_DEBUT = "plage.debut";
+    public static final String CLE_FIN = "plage.fin";
+    public static final String CLE_NUMERO = "plage.numero";
+    public static final String CLE_ENTETE = "plage.entete";
+    public static final String CLE_PIED = "plage.pied";
+
+    private final String fichier;
+    private final EbcdicOutils.ModeLecture mode;
+    private final int pasIndex;
+
+    public EbcdicRangePartitioner(String fichier, EbcdicOutils.ModeLecture mode) {
+        this(fichier, mode, 0);
+    }
+
+    /** @param pasIndex un repère tous les {@code pasIndex} enregistrements ; 0 sans index */
+    public EbcdicRangePartitioner(String fichier, EbcdicOutils.ModeLecture mode, int pasIndex) {
+        this.fichier = fichier;
+        this.mode = mode;
+        this.pasIndex = pasIndex;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int nbPlages = Math.max(gridSize, 1);
+        long[] debuts = new long[nbPlages];
+        int[] numeros = new int[nbPlages];
+
+        try {
+            EbcdicRecordIndex index = pasIndex > 0 ? EbcdicRecordIndex.lire(Paths.get(fichier)) : null;
+            if (index != null) {
+                decouperSelonIndex(index, debuts, numeros);
+            } else {
+                decouper(debuts, numeros);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Pré-découpage impossible du fichier EBCDIC : " + fichier, e);
+        }
+
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < nbPlages; i++) {
+            ExecutionContext contexte = new ExecutionContext();
+            contexte.putLong(CLE_DEBUT, debuts[i]);
+            contexte.putLong(CLE_FIN, i + 1 < nbPlages ? debuts[i + 1] : Long.MAX_VALUE);
+            contexte.putInt(CLE_NUMERO, numeros[i]);
+            contexte.putString(CLE_ENTETE, Boolean.toString(i == 0));
+            contexte.putString(CLE_PIED, Boolean.toString(i == nbPlages - 1));
+            partitions.put("plage" + i, contexte);
+        }
+        return partitions;
+    }
+
+    // Parcours complet du fichier (découpage seul), qui écrit l'index au passage si demandé
+    private void decouper(long[] debuts, int[] numeros) throws IOException {
+        // Taille réelle : available() plafonne à Integer.MAX_VALUE au-delà de 2 Gio
+        long taille = Files.size(Paths.get(fichier));
+        EbcdicFramer source = EbcdicOutils.ouvrirFramer(fichier, mode);
+        if (pasIndex > 0) {
+            source = EbcdicRecordIndex.indexer(source, Paths.get(fichier), pasIndex);
+        }
+        try (EbcdicFramer framer = source) {
+            decouper(framer, taille, debuts, numeros);
+        }
+    }
+
+    /** Frontières des plages pour un fichier de {@code taille} octets lu par {@code framer}. */
+    static void decouper(EbcdicFramer framer, long taille, long[] debuts, int[] numeros) throws IOException {
+        int nbPlages = debuts.length;
+        int numero = 0;
+        long position = 0;
+        if (framer.suivant(10)) {
+            numero++;
+            position = framer.positionSuivante();
+        }
+        // Plages vides par défaut : elles commencent à la fin du corps
+        int plage = 1;
+        while (framer.disponible() >= 1390) {
+            framer.suivant(1390);
+            // Première frontière franchie par ce début d'enregistrement
+            while (plage < nbPlages && framer.positionEnregistrement() >= taille * plage / nbPlages) {
+                debuts[plage] = framer.positionEnregistrement();
+                numeros[plage] = numero;
+                plage++;
+            }
+            numero++;
+            position = framer.positionSuivante();
+        }
+        for (; plage < nbPlages; plage++) {
+            debuts[plage] = position;
+            numeros[plage] = numero;
+        }
+    }
+
+    // Même découpage depuis l'index, sans lire le fichier : chaque plage commence au premier
+    // repère du corps qui suit sa frontière (numéro d'enregistrement = enregistrements précédents)
+    private void decouperSelonIndex(EbcdicRecordIndex index, long[] debuts, int[] numeros) {
+        int nbPlages = debuts.length;
+        long taille = index.tailleFichier();
+        for (int plage = 1; plage < nbPlages; plage++) {
+            int numero = index.premierRepereCorpsApres(taille * plage / nbPlages);
+            if (numero < 0) {
+                debuts[plage] = index.positionFinCorps();
+                numeros[plage] = Math.min(index.nombreCorps() + 1, index.nombreEnregistrements());
+            } else {
+                debuts[plage] = index.positionRepere(numero);
+                numeros[plage] = numero;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Découpage des enregistrements EBCDIC par lectures en bloc.
+ * <p>
+ * Remplace l'appel à {@code InputStream.read()} octet par octet de
+ * {@link EbcdicOutils#lireProchaineLigne} : le flux est lu par gros blocs dans un
+ * tampon réutilisé et chaque enregistrement est exposé comme une vue
+ * ({@link #tampon()}, {@link #debut()}, {@link #longueur()}) sans copie.
+ * La règle de découpage est identique : un enregistrement se termine au premier
+ * délimiteur rencontré une fois la longueur minimale atteinte, délimiteur inclus.
+ * <p>
+ * La vue n'est valable que jusqu'au prochain appel à {@link #suivant(int)}.
+ *
+ * @see EbcdicMappedRecordFramer
+ */
+public class EbcdicRecordFramer implements EbcdicFramer {
+
+    public static final byte DELIMITEUR = (byte) 10;
+    public static final int TAILLE_BLOC_DEFAUT = 1 << 20;
+    /** Taille maximale d'un enregistrement (taille du tampon historique de plcConvert). */
+    public static final int TAILLE_ENREGISTREMENT_MAX = 20000;
+
+    private final InputStream source;
+    private final byte[] tampon;
+    private final ByteBuffer vue;
+
+    // Données valides du tampon : [lecture, fin)
+    private int lecture;
+    private int fin;
+    private boolean finFlux;
+
+    // Enregistrement courant
+    private int debut;
+    private int longueur;
+    private long positionEnregistrement;
+    private long positionFlux;
+
+    public EbcdicRecordFramer(InputStream source) {
+        this(source, TAILLE_BLOC_DEFAUT);
+    }
+
+    public EbcdicRecordFramer(InputStream source, int tailleBloc) {
+        this.source = source;
+        // Un enregistrement complet doit toujours tenir dans le tampon après compactage
+        this.tampon = new byte[Math.max(tailleBloc, 2 * TAILLE_ENREGISTREMENT_MAX)];
+        this.vue = ByteBuffer.wrap(tampon);
+    }
+
+    /**
+     * Positionne l'enregistrement suivant.
+     *
+     * @param longueurMin longueur minimale avant laquelle le délimiteur est ignoré
+     * @return {@code false} en fin de flux (aucun octet restant)
+     */
+    @Override
+    public boolean suivant(int longueurMin) throws IOException {
+        // Le délimiteur ne peut pas se trouver avant longueurMin - 1 : inutile d'y chercher
+        int recherche = lecture + Math.max(longueurMin - 1, 0);
+        while (true) {
+            int limite = Math.min(fin, lecture + TAILLE_ENREGISTREMENT_MAX);
+            if (recherche < limite) {
+                int i = indexDelimiteur(tampon, recherche, limite);
+                if (i >= 0) {
+                    positionner(i + 1 - lecture);
+                    return true;
+                }
+                recherche = limite;
+            }
+            if (finFlux) {
+                if (fin == lecture) {
+                    longueur = 0;
+                    return false;
+                }
+                verifierLongueur(fin - lecture);
+                positionner(fin - lecture);
+                return true;
+            }
+            verifierLongueur(fin - lecture);
+            int decalage = remplir();
+            recherche -= decalage;
+        }
+    }
+
+    static void verifierLongueur(long taille) throws IOException {
+        if (taille > TAILLE_ENREGISTREMENT_MAX) {
+            throw new IOException("Enregistrement plus long que " + TAILLE_ENREGISTREMENT_MAX + " octets.");
+        }
+    }
+
+    // Boucle simple sans dépendance entre itérations, laissée au JIT
+    private static int indexDelimiteur(byte[] tampon, int depuis, int jusqua) {
+        for (int i = depuis; i < jusqua; i++) {
+            if (tampon[i] == DELIMITEUR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void positionner(int taille) {
+        debut = lecture;
+        longueur = taille;
+        positionEnregistrement = positionFlux;
+        lecture += taille;
+        positionFlux += taille;
+    }
+
+    /**
+     * Compacte le tampon puis le complète par lectures en bloc.
+     *
+     * @return le décalage appliqué aux index du tampon par le compactage
+     */
+    private int remplir() throws IOException {
+        int decalage = lecture;
+        if (decalage > 0) {
+            System.arraycopy(tampon, lecture, tampon, 0, fin - lecture);
+            fin -= lecture;
+            lecture = 0;
+        }
+        int lus = source.read(tampon, fin, tampon.length - fin);
+        if (lus < 0) {
+            finFlux = true;
+        } else {
+            fin += lus;
+        }
+        return decalage;
+    }
+
+    @Override
+    public void reprendreA(long position) throws IOException {
+        if (positionFlux != 0 || fin != 0) {
+            throw new IllegalStateException("Reprise possible uniquement avant la première lecture");
+        }
+        long restant = position;
+        while (restant > 0) {
+            long sautes = source.skip(restant);
+            if (sautes <= 0) {
+                // skip peut s'arrêter avant la fin : on vérifie par une lecture
+                if (source.read() < 0) {
+                    throw new IOException("Position de reprise au-delà de la fin du fichier : " + position);
+                }
+                sautes = 1;
+            }
+            restant -= sautes;
+        }
+        positionFlux = position;
+        positionEnregistrement = position;
+    }
+
+    /** Équivalent de {@code available()} sur le flux : octets en tampon plus octets restants. */
+    @Override
+    public long disponible() throws IOException {
+        return (fin - lecture) + (finFlux ? 0 : source.available());
+    }
+
+    public byte[] tampon() {
+        return tampon;
+    }
+
+    @Override
+    public ByteBuffer vue() {
+        return vue;
+    }
+
+    @Override
+    public int debut() {
+        return debut;
+    }
+
+    @Override
+    public int longueur() {
+        return longueur;
+    }
+
+    @Override
+    public long positionEnregistrement() {
+        return positionEnregistrement;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
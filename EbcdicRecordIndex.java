@@ -0,0 +1,415 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index des débuts d'enregistrement d'un fichier ruban SIC, dans un fichier voisin
+ * {@code <fichier>.idx}.
+ * <p>
+ * Le délimiteur 0x0A ne compte qu'après la longueur minimale : retrouver l'enregistrement N
+ * demande normalement de découper le fichier depuis le début. L'index conserve la position
+ * d'un enregistrement sur {@code pas} (repères, écarts successifs codés en entiers de
+ * longueur variable), la fin du corps, la taille, la date de modification et le CRC32C du
+ * fichier. Il est construit pendant un premier passage ({@link #indexer}) sans lecture
+ * supplémentaire ; ensuite {@link #ouvrirA} se positionne sur le repère puis découpe au
+ * plus {@code pas - 1} enregistrements.
+ * <p>
+ * Numérotation à partir de 0 : l'en-tête est l'enregistrement 0, le corps va de 1 à
+ * {@link #nombreCorps()}, le pied de page suit. Un index dont la taille ou la date ne
+ * correspondent plus au fichier est ignoré ({@link #lire} retourne null) ; {@link #verifier}
+ * recalcule le CRC32C du fichier entier.
+ */
+public final class EbcdicRecordIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EbcdicRecordIndex.class);
+
+    public static final String EXTENSION = ".idx";
+    public static final int PAS_DEFAUT = 64;
+
+    private static final int MAGIQUE = 0x45424958; // "EBIX"
+    private static final int VERSION = 1;
+
+    private final int pas;
+    private final long tailleFichier;
+    private final long dateModification;
+    private final long crc;
+    private final int nombreEnregistrements;
+    private final int nombreCorps;
+    private final long positionFinCorps;
+    private final long[] reperes;
+
+    private EbcdicRecordIndex(int pas, long tailleFichier, long dateModification, long crc,
+                              int nombreEnregistrements, int nombreCorps, long positionFinCorps, long[] reperes) {
+        this.pas = pas;
+        this.tailleFichier = tailleFichier;
+        this.dateModification = dateModification;
+        this.crc = crc;
+        this.nombreEnregistrements = nombreEnregistrements;
+        this.nombreCorps = nombreCorps;
+        this.positionFinCorps = positionFinCorps;
+        this.reperes = reperes;
+    }
+
+    public static Path fichierIndex(Path fichier) {
+        return fichier.resolveSibling(fichier.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Index du fichier s'il existe et correspond encore au fichier (taille, date), sinon null.
+     * Un index illisible ou incohérent (tronqué, corrompu) est ignoré de même : la taille et
+     * la date sont comparées avant de lire les repères, dont le nombre est borné par celui
+     * des enregistrements.
+     */
+    public static EbcdicRecordIndex lire(Path fichier) throws IOException {
+        Path index = fichierIndex(fichier);
+        if (!Files.isRegularFile(index)) {
+            return null;
+        }
+        long tailleFichier = Files.size(fichier);
+        long dateFichier = Files.getLastModifiedTime(fichier).toMillis();
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            if (dis.readInt() != MAGIQUE || dis.readUnsignedByte() != VERSION) {
+                return null;
+            }
+            int pas = dis.readInt();
+            long taille = dis.readLong();
+            long date = dis.readLong();
+            if (taille != tailleFichier || date != dateFichier) {
+                return null;
+            }
+            long crc = dis.readLong();
+            int nombre = dis.readInt();
+            int nombreCorps = dis.readInt();
+            long finCorps = dis.readLong();
+            int nombreReperes = dis.readInt();
+            if (pas < 1 || nombre < 0 || nombre > taille || nombreCorps < 0 || nombreCorps > nombre
+                    || nombreReperes < 0 || nombreReperes > nombre / pas + 1) {
+                log.warn("Index incohérent, ignoré : {}", index);
+                return null;
+            }
+            long[] reperes = new long[nombreReperes];
+            long position = 0;
+            for (int i = 0; i < reperes.length; i++) {
+                position += lireVarLong(dis);
+                reperes[i] = position;
+            }
+            return new EbcdicRecordIndex(pas, taille, date, crc, nombre, nombreCorps, finCorps, reperes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Index illisible, ignoré : {} ({})", index, e.toString());
+            return null;
+        }
+    }
+
+    /** Index lu s'il est à jour, sinon construit par un découpage complet du fichier. */
+    public static EbcdicRecordIndex charger(String fichier, EbcdicOutils.ModeLecture mode, int pas) throws IOException {
+        EbcdicRecordIndex index = lire(Paths.get(fichier));
+        if (index != null) {
+            return index;
+        }
+        Indexeur indexeur = indexer(EbcdicOutils.ouvrirFramer(fichier, mode), Paths.get(fichier), pas);
+        indexeur.close();
+        return indexeur.index();
+    }
+
+    /**
+     * Framer qui construit l'index de {@code fichier} au fil du passage de {@code framer} ;
+     * à la fermeture, le reste du fichier est découpé selon la règle de plcConvert puis
+     * l'index est écrit. Un passage repris en cours de fichier ({@link EbcdicFramer#reprendreA})
+     * n'écrit pas d'index.
+     */
+    public static Indexeur indexer(EbcdicFramer framer, Path fichier, int pas) {
+        if (pas < 1) {
+            throw new IllegalArgumentException("Pas d'index invalide : " + pas);
+        }
+        return new Indexeur(framer, fichier, pas);
+    }
+
+    public int pas() {
+        return pas;
+    }
+
+    public long tailleFichier() {
+        return tailleFichier;
+    }
+
+    /** En-tête, corps et pied de page. */
+    public int nombreEnregistrements() {
+        return nombreEnregistrements;
+    }
+
+    public int nombreCorps() {
+        return nombreCorps;
+    }
+
+    /** Position qui suit le dernier enregistrement du corps (début du pied de page). */
+    public long positionFinCorps() {
+        return positionFinCorps;
+    }
+
+    /** Dernier repère au plus égal à {@code numero}. */
+    public int repereAvant(int numero) {
+        return Math.min(numero, nombreEnregistrements - 1) / pas * pas;
+    }
+
+    /** Position de l'enregistrement {@code numero}, qui doit être un repère (multiple de {@link #pas()}). */
+    public long positionRepere(int numero) {
+        if (numero % pas != 0) {
+            throw new IllegalArgumentException("Enregistrement " + numero + " hors repère (pas " + pas + ")");
+        }
+        return reperes[numero / pas];
+    }
+
+    /** Premier repère du corps commençant à {@code position} ou après, ou -1 s'il n'y en a pas. */
+    public int premierRepereCorpsApres(long position) {
+        int i = Arrays.binarySearch(reperes, position);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        // L'en-tête (repère 0) ne commence jamais une plage du corps
+        int numero = Math.max(i, 1) * pas;
+        return numero <= nombreCorps ? numero : -1;
+    }
+
+    /**
+     * Framer positionné juste avant l'enregistrement {@code numero} : le prochain
+     * {@code suivant} le retourne. Les enregistrements entre le repère et {@code numero}
+     * sont découpés sans décodage.
+     */
+    public EbcdicFramer ouvrirA(String fichier, EbcdicOutils.ModeLecture mode, int numero) throws IOException {
+        if (numero < 0 || numero > nombreEnregistrements) {
+            throw new IndexOutOfBoundsException("Enregistrement " + numero + " sur " + nombreEnregistrements);
+        }
+        int repere = repereAvant(numero);
+        EbcdicFramer framer = EbcdicOutils.ouvrirFramer(fichier, mode);
+        try {
+            if (repere > 0) {
+                framer.reprendreA(reperes[repere / pas]);
+            }
+            for (int n = repere; n < numero; n++) {
+                framer.suivant(longueurMin(n));
+            }
+        } catch (IOException | RuntimeException e) {
+            framer.close();
+            throw e;
+        }
+        return framer;
+    }
+
+    /** Longueur minimale de l'enregistrement {@code numero} : 10 pour l'en-tête et le pied, 1390 pour le corps. */
+    public int longueurMin(int numero) {
+        return numero == 0 || numero > nombreCorps ? 10 : 1390;
+    }
+
+    /** Recalcule le CRC32C du fichier entier et le compare à celui de l'index. */
+    public boolean verifier(Path fichier) throws IOException {
+        CRC32C calcul = new CRC32C();
+        byte[] bloc = new byte[EbcdicRecordFramer.TAILLE_BLOC_DEFAUT];
+        try (InputStream is = Files.newInputStream(fichier)) {
+            for (int lus; (lus = is.read(bloc)) > 0; ) {
+                calcul.update(bloc, 0, lus);
+            }
+        }
+        return calcul.getValue() == crc;
+    }
+
+    private void ecrire(Path fichier) throws IOException {
+        Path index = fichierIndex(fichier);
+        Path temporaire = Files.createTempFile(index.toAbsolutePath().getParent(), "index", ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+            dos.writeInt(MAGIQUE);
+            dos.writeByte(VERSION);
+            dos.writeInt(pas);
+            dos.writeLong(tailleFichier);
+            dos.writeLong(dateModification);
+            dos.writeLong(crc);
+            dos.writeInt(nombreEnregistrements);
+            dos.writeInt(nombreCorps);
+            dos.writeLong(positionFinCorps);
+            dos.writeInt(reperes.length);
+            long precedente = 0;
+            for (long position : reperes) {
+                ecrireVarLong(dos, position - precedente);
+                precedente = position;
+            }
+        }
+        // Écriture atomique : un lecteur concurrent ne voit jamais un index partiel
+        Files.move(temporaire, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Entier positif sur 7 bits par octet, bit de poids fort = suite : 2 octets par écart de corps
+    private static void ecrireVarLong(DataOutputStream dos, long valeur) throws IOException {
+        while ((valeur & ~0x7FL) != 0) {
+            dos.writeByte((int) ((valeur & 0x7F) | 0x80));
+            valeur >>>= 7;
+        }
+        dos.writeByte((int) valeur);
+    }
+
+    private static long lireVarLong(DataInputStream dis) throws IOException {
+        long valeur = 0;
+        for (int decalage = 0; ; decalage += 7) {
+            int octet = dis.readUnsignedByte();
+            valeur |= (long) (octet & 0x7F) << decalage;
+            if ((octet & 0x80) == 0) {
+                return valeur;
+            }
+        }
+    }
+
+    /**
+     * Framer décorant celui d'un premier passage (conversion, pré-découpage des partitions) :
+     * il note la position d'un enregistrement sur {@code pas} et calcule le CRC32C des octets
+     * découpés, puis écrit l'index à la fermeture.
+     */
+    public static final class Indexeur implements EbcdicFramer {
+        private final EbcdicFramer framer;
+        private final Path fichier;
+        private final int pas;
+        private final CRC32C crc = new CRC32C();
+        private long[] reperes = new long[64];
+        private int nombre;
+        private int nombreCorps;
+        private long positionFinCorps;
+        private long positionLue;
+        private boolean piedLu;
+        private boolean actif = true;
+        private EbcdicRecordIndex index;
+
+        private Indexeur(EbcdicFramer framer, Path fichier, int pas) {
+            this.framer = framer;
+            this.fichier = fichier;
+            this.pas = pas;
+        }
+
+        @Override
+        public boolean suivant(int longueurMin) throws IOException {
+            boolean lu = framer.suivant(longueurMin);
+            if (lu && actif) {
+                noter(longueurMin);
+            }
+            return lu;
+        }
+
+        private void noter(int longueurMin) {
+            ByteBuffer vue = framer.vue();
+            if (vue.hasArray()) {
+                crc.update(vue.array(), vue.arrayOffset() + framer.debut(), framer.longueur());
+            } else {
+                ByteBuffer enregistrement = vue.duplicate();
+                enregistrement.limit(framer.debut() + framer.longueur()).position(framer.debut());
+                crc.update(enregistrement);
+            }
+            positionLue = framer.positionSuivante();
+            if (piedLu) {
+                // Octets après le pied de page : comptés dans le CRC, pas dans la numérotation
+                return;
+            }
+            if (nombre % pas == 0) {
+                if (nombre / pas == reperes.length) {
+                    reperes = Arrays.copyOf(reperes, 2 * reperes.length);
+                }
+                reperes[nombre / pas] = framer.positionEnregistrement();
+            }
+            if (nombre > 0 && longueurMin == 10) {
+                piedLu = true;
+            } else if (nombre > 0) {
+                nombreCorps++;
+                positionFinCorps = framer.positionSuivante();
+            } else {
+                positionFinCorps = framer.positionSuivante();
+            }
+            nombre++;
+        }
+
+        @Override
+        public long disponible() throws IOException {
+            return framer.disponible();
+        }
+
+        @Override
+        public ByteBuffer vue() {
+            return framer.vue();
+        }
+
+        @Override
+        public int debut() {
+            return framer.debut();
+        }
+
+        @Override
+        public int longueur() {
+            return framer.longueur();
+        }
+
+        @Override
+        public long positionEnregistrement() {
+            return framer.positionEnregistrement();
+        }
+
+        @Override
+        public long positionSuivante() {
+            return framer.positionSuivante();
+        }
+
+        @Override
+        public void reprendreA(long position) throws IOException {
+            // Les octets sautés manquent au CRC et aux repères
+            actif = position == 0;
+            framer.reprendreA(position);
+        }
+
+        /** Index écrit à la fermeture, null si le passage n'a pas couvert tout le fichier. */
+        public EbcdicRecordIndex index() {
+            return index;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (actif) {
+                    terminer();
+                }
+            } catch (IOException e) {
+                log.warn("Index non écrit pour {} : {}", fichier, e.getMessage());
+            } finally {
+                framer.close();
+            }
+        }
+
+        // Fin du découpage comme plcConvert (en-tête, corps, pied de page), puis octets restants
+        private void terminer() throws IOException {
+            if (nombre == 0) {
+                suivant(10);
+            }
+            if (!piedLu) {
+                while (framer.disponible() >= 1390) {
+                    suivant(1390);
+                }
+                suivant(10);
+            }
+            while (suivant(10)) {
+                // CRC seulement
+            }
+            long taille = Files.size(fichier);
+            if (positionLue != taille) {
+                throw new IOException("Fichier modifié pendant l'indexation");
+            }
+            index = new EbcdicRecordIndex(pas, taille, Files.getLastModifiedTime(fichier).toMillis(), crc.getValue(),
+                    nombre, nombreCorps, positionFinCorps, Arrays.copyOf(reperes, (nombre + pas - 1) / pas));
+            index.ecrire(fichier);
+        }
+    }
+}
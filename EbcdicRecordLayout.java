@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Description déclarative d'un enregistrement EBCDIC, à la manière d'une copybook :
+ * champs dans l'ordre de sortie, puis groupe répétitif dont le nombre d'occurrences est
+ * lu dans un compteur (OCCURS DEPENDING ON).
+ * <p>
+ * Le plan de décodage ({@link #plan()}) est compilé une seule fois à la construction ;
+ * c'est lui qui est exécuté pour chaque enregistrement.
+ */
+public final class EbcdicRecordLayout {
+
+    public enum TypeChamp {
+        /** Texte EBCDIC (PIC X). */
+        DISPLAY,
+        /** Décimal condensé (COMP-3), écrit en chiffres complétés à gauche par des zéros. */
+        COMP3,
+        /** Entier binaire signé big-endian (COMP), écrit en chiffres complétés à gauche par des zéros. */
+        BINAIRE
+    }
+
+    public static final class Champ {
+        private final String nom;
+        private final int offset;
+        private final int longueur;
+        private final TypeChamp type;
+        private final boolean imprimable;
+        private final int largeurPad;
+
+        public Champ(String nom, int offset, int longueur, TypeChamp type, boolean imprimable, int largeurPad) {
+            this.nom = nom;
+            this.offset = offset;
+            this.longueur = longueur;
+            this.type = type;
+            this.imprimable = imprimable;
+            this.largeurPad = largeurPad;
+        }
+
+        public String getNom() { return nom; }
+        public int getOffset() { return offset; }
+        public int getLongueur() { return longueur; }
+        public TypeChamp getType() { return type; }
+        public boolean isImprimable() { return imprimable; }
+        public int getLargeurPad() { return largeurPad; }
+    }
+
+    /**
+     * Disposition du corps du ruban SIC telle que décodée par plcConvert.
+     * Les noms reprennent la numérotation historique des tableaux (array2 → champ2...).
+     */
+    public static final EbcdicRecordLayout RUBAN_SIC = builder()
+            .texte("champ2", 0, 233, true)
+            .packed("champ7", 1404, 3, 5)
+            .packed("champ8", 1407, 3, 2)
+            .texte("champ3", 233, 9, false)
+            .texte("champ4", 242, 1156, true)
+            .packed("champ5", 1398, 3, 5)
+            .packed("champ6", 1401, 3, 5)
+            .texte("champ16", 1448, 8, true)
+            .compteur("champ9", 1410, 2)
+            .groupe(1448, 4)
+            .packed("champ10", 0, 3, 3)
+            .packed("champ11", 2, 3, 15)
+            .texte("champ12", 0, 100, false)
+            .texte("champ13", 10, 100, false)
+            .texte("champ14", 20, 3, false)
+            .texte("champ15", 23, 3, false)
+            .packed("champ16", 26, 8, 15)
+            .build();
+
+    /**
+     * Disposition historique de plcConvert2 : ordre de sortie différent, compteur réécrit
+     * en sortie, occurrences de 44 octets, compteur invalide lu comme 0 et pas de contrôle
+     * de longueur des champs.
+     */
+    public static final EbcdicRecordLayout RUBAN_SIC_V2 = builder()
+            .texte("champ2", 0, 233, true)
+            .texte("champ3", 233, 9, false)
+            .texte("champ4", 242, 1156, true)
+            .packed("champ5", 1398, 3, 5)
+            .packed("champ6", 1401, 3, 5)
+            .packed("champ7", 1404, 3, 5)
+            .packed("champ8", 1407, 3, 5)
+            .texte("champ9", 1410, 2, true)
+            .packed("champ9", 1410, 2, 2)
+            .compteur("champ9", 1410, 2)
+            .compteurInvalideAZero()
+            .sansControleLongueur()
+            .groupe(1448, 44)
+            .packed("champ10", 0, 3, 3)
+            .packed("champ11", 2, 3, 15)
+            .texte("champ12", 4, 100, false)
+            .texte("champ13", 14, 100, false)
+            .texte("champ14", 24, 3, false)
+            .texte("champ15", 27, 3, false)
+            .packed("champ16", 30, 8, 15)
+            .build();
+
+    private final List<Champ> champs;
+    private final Champ compteur;
+    private final int groupeBase;
+    private final int groupePas;
+    private final List<Champ> champsGroupe;
+    private final boolean compteurInvalideAZero;
+    private final boolean controleLongueur;
+    private final EbcdicCodec.Profil profil;
+    private final EbcdicCodec.PageCode pageCode;
+    private final EbcdicCodec.Sortie sortie;
+    private final EbcdicDecoderPlan plan;
+
+    private EbcdicRecordLayout(List<Champ> champs, Champ compteur, int groupeBase, int groupePas,
+                               List<Champ> champsGroupe, boolean compteurInvalideAZero, boolean controleLongueur,
+                               EbcdicCodec.Profil profil, EbcdicCodec.PageCode pageCode, EbcdicCodec.Sortie sortie) {
+        this.champs = Collections.unmodifiableList(new ArrayList<>(champs));
+        this.compteur = compteur;
+        this.groupeBase = groupeBase;
+        this.groupePas = groupePas;
+        this.champsGroupe = Collections.unmodifiableList(new ArrayList<>(champsGroupe));
+        this.compteurInvalideAZero = compteurInvalideAZero;
+        this.controleLongueur = controleLongueur;
+        this.profil = profil;
+        this.pageCode = pageCode;
+        this.sortie = sortie;
+        this.plan = new EbcdicDecoderPlan(this);
+    }
+
+    /**
+     * Même disposition pour une autre page de code ou d'autres caractères conservés, par
+     * exemple une copybook appliquée à un flux Cp297.
+     */
+    public EbcdicRecordLayout avec(EbcdicCodec.PageCode pageCode, EbcdicCodec.Sortie sortie) {
+        if (pageCode == this.pageCode && sortie == this.sortie) {
+            return this;
+        }
+        return new EbcdicRecordLayout(champs, compteur, groupeBase, groupePas, champsGroupe,
+                compteurInvalideAZero, controleLongueur, profil, pageCode, sortie);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public EbcdicDecoderPlan plan() {
+        return plan;
+    }
+
+    public List<Champ> getChamps() { return champs; }
+    public Champ getCompteur() { return compteur; }
+    public int getGroupeBase() { return groupeBase; }
+    public int getGroupePas() { return groupePas; }
+    public List<Champ> getChampsGroupe() { return champsGroupe; }
+    public boolean isCompteurInvalideAZero() { return compteurInvalideAZero; }
+    public boolean isControleLongueur() { return controleLongueur; }
+    public EbcdicCodec.Profil getProfil() { return profil; }
+    public EbcdicCodec.PageCode getPageCode() { return pageCode; }
+    public EbcdicCodec.Sortie getSortie() { return sortie; }
+
+    /** Codec des champs texte de cette disposition (en-tête et pied de page compris). */
+    public EbcdicCodec codec(boolean imprimableSeulement) {
+        return EbcdicCodec.de(pageCode, profil, sortie, imprimableSeulement);
+    }
+
+    public static final class Builder {
+        private final List<Champ> champs = new ArrayList<>();
+        private final List<Champ> champsGroupe = new ArrayList<>();
+        private Champ compteur;
+        private int groupeBase;
+        private int groupePas;
+        private boolean dansGroupe;
+        private boolean compteurInvalideAZero;
+        private boolean controleLongueur = true;
+        private EbcdicCodec.Profil profil = EbcdicCodec.Profil.CSHARP;
+        private EbcdicCodec.PageCode pageCode = EbcdicCodec.PageCode.CP037;
+        private EbcdicCodec.Sortie sortie = EbcdicCodec.Sortie.ASCII;
+
+        public Builder champ(Champ champ) {
+            (dansGroupe ? champsGroupe : champs).add(champ);
+            return this;
+        }
+
+        public Builder texte(String nom, int offset, int longueur, boolean imprimable) {
+            return champ(new Champ(nom, offset, longueur, TypeChamp.DISPLAY, imprimable, 0));
+        }
+
+        public Builder packed(String nom, int offset, int longueur, int largeurPad) {
+            return champ(new Champ(nom, offset, longueur, TypeChamp.COMP3, false, largeurPad));
+        }
+
+        public Builder binaire(String nom, int offset, int longueur, int largeurPad) {
+            return champ(new Champ(nom, offset, longueur, TypeChamp.BINAIRE, false, largeurPad));
+        }
+
+        /** Compteur COMP-3 donnant le nombre d'occurrences du groupe répétitif. */
+        public Builder compteur(String nom, int offset, int longueur) {
+            return compteur(new Champ(nom, offset, longueur, TypeChamp.COMP3, false, 0));
+        }
+
+        /** Compteur COMP-3 ou binaire (COMP). */
+        public Builder compteur(Champ compteur) {
+            if (compteur.getType() == TypeChamp.DISPLAY) {
+                throw new IllegalArgumentException("Compteur non numérique : " + compteur.getNom());
+            }
+            this.compteur = compteur;
+            return this;
+        }
+
+        /** Les champs déclarés ensuite sont relatifs au début de chaque occurrence. */
+        public Builder groupe(int base, int pas) {
+            this.groupeBase = base;
+            this.groupePas = pas;
+            this.dansGroupe = true;
+            return this;
+        }
+
+        public Builder compteurInvalideAZero() {
+            this.compteurInvalideAZero = true;
+            return this;
+        }
+
+        public Builder sansControleLongueur() {
+            this.controleLongueur = false;
+            return this;
+        }
+
+        /** Substitutions des champs texte ; {@link EbcdicCodec.Profil#CSHARP} par défaut, comme plcConvert. */
+        public Builder profil(EbcdicCodec.Profil profil) {
+            this.profil = profil;
+            return this;
+        }
+
+        /** Page de code du flux ; {@link EbcdicCodec.PageCode#CP037} par défaut. */
+        public Builder pageCode(EbcdicCodec.PageCode pageCode) {
+            this.pageCode = pageCode;
+            return this;
+        }
+
+        /** {@link EbcdicCodec.Sortie#LATIN1} conserve les caractères accentués ; ASCII par défaut. */
+        public Builder sortie(EbcdicCodec.Sortie sortie) {
+            this.sortie = sortie;
+            return this;
+        }
+
+        public EbcdicRecordLayout build() {
+            if (!champsGroupe.isEmpty() && compteur == null) {
+                throw new IllegalStateException("Un groupe répétitif nécessite un compteur");
+            }
+            return new EbcdicRecordLayout(champs, compteur, groupeBase, groupePas, champsGroupe,
+                    compteurInvalideAZero, controleLongueur, profil, pageCode, sortie);
+        }
+    }
+}
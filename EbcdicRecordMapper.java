@@ -0,0 +1,23 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Transformation d'un enregistrement EBCDIC brut en objet, appelée par
+ * {@link EbcdicRubanSicItemReader#corpsDirect} pour chaque enregistrement du corps.
+ *
+ * @see EbcdicDtoMapper
+ * @see EbcdicRecordView.Modele
+ */
+@FunctionalInterface
+public interface EbcdicRecordMapper<T> {
+
+    /**
+     * Objet construit à partir de l'enregistrement [debut, debut + longueur) de la vue. La vue
+     * est le tampon du framer, réutilisé pour l'enregistrement suivant : rien ne doit y être
+     * conservé après le retour.
+     *
+     * @param resteDonnees des octets suivent l'enregistrement dans le fichier (contrôle des champs)
+     * @param champ        vue de travail réutilisée pour chaque champ, confinée au thread appelant
+     */
+    T mapper(ByteBuffer vue, int debut, int longueur, boolean resteDonnees, EbcdicFieldView champ) throws IOException;
+}
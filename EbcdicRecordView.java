@@ -0,0 +1,317 @@
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.item.file.LineMapper;
+
+/**
+ * Enregistrement EBCDIC du corps transmis tel quel aux ItemProcessors : un champ n'est
+ * décodé qu'au premier appel de son accesseur, puis gardé en cache. Un traitement qui ne
+ * lit que les compteurs (champ5 à champ8) ou le montant d'une occurrence ne paie plus le
+ * décodage des 1156 octets de champ4.
+ * <p>
+ * Le tampon du framer étant réutilisé pour l'enregistrement suivant, la vue garde sa copie
+ * des octets, complétée par des zéros au-delà de la fin de l'enregistrement comme le tampon
+ * de 20000 octets de plcConvert. Le compteur d'occurrences et le contrôle de longueur des
+ * champs sont appliqués à la création : une erreur survient à la lecture, comme pour la
+ * ligne ASCII. Les valeurs suivent {@link EbcdicDtoMapper} : texte trim, COMP-3 en
+ * {@code long} ({@link PackedDecimal#VIDE}, {@link PackedDecimal#INVALIDE}) ou
+ * {@link BigDecimal} (null si vide ou invalide).
+ * <p>
+ * Une vue n'est pas thread-safe. {@link #materialiser()} décode tous les champs d'un coup,
+ * par exemple avant de passer la vue à un autre thread.
+ * <pre>
+ * EbcdicRecordView.Modele modele = EbcdicRecordView.modele(EbcdicRecordLayout.RUBAN_SIC, false);
+ * EbcdicRubanSicItemReader&lt;EbcdicRecordView&gt; reader = new EbcdicRubanSicItemReader&lt;&gt;(fichier, modele.lignes());
+ * reader.corpsDirect(modele);
+ * </pre>
+ */
+public final class EbcdicRecordView {
+
+    private static final int TAILLE_MAX = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+
+    private final Modele modele;
+    private final String ligne;
+    private final byte[] octets;
+    private final Valeurs fixes;
+    private final Valeurs[] groupe;
+
+    private EbcdicRecordView(Modele modele, byte[] octets, int occurrences) {
+        this.modele = modele;
+        this.ligne = null;
+        this.octets = octets;
+        this.fixes = new Valeurs(modele.champs, 0);
+        this.groupe = new Valeurs[occurrences];
+    }
+
+    // En-tête ou pied de page, déjà converti en ligne
+    private EbcdicRecordView(String ligne) {
+        this.modele = null;
+        this.ligne = ligne;
+        this.octets = null;
+        this.fixes = null;
+        this.groupe = new Valeurs[0];
+    }
+
+    /**
+     * Modèle de vue d'une disposition, à construire une fois et partageable entre threads.
+     *
+     * @param materialiser tous les champs sont décodés à la création de chaque vue
+     */
+    public static Modele modele(EbcdicRecordLayout layout, boolean materialiser) {
+        return new Modele(layout, materialiser);
+    }
+
+    /** Vue du corps ; false pour l'en-tête et le pied de page, lus par {@link #ligne()}. */
+    public boolean estCorps() {
+        return octets != null;
+    }
+
+    /** Ligne ASCII de l'en-tête ou du pied de page, null pour le corps. */
+    public String ligne() {
+        return ligne;
+    }
+
+    public String texte(String nom) {
+        return corps().texte(nom);
+    }
+
+    public long nombre(String nom) {
+        return corps().nombre(nom);
+    }
+
+    public BigDecimal decimal(String nom, int echelle) {
+        return corps().decimal(nom, echelle);
+    }
+
+    /** Nombre d'occurrences du groupe répété, lu à la création de la vue. */
+    public int occurrences() {
+        return groupe.length;
+    }
+
+    /** Champs de l'occurrence {@code n} (à partir de 0) du groupe répété. */
+    public Valeurs occurrence(int n) {
+        corps();
+        if (n < 0 || n >= groupe.length) {
+            throw new IndexOutOfBoundsException("Occurrence " + n + " sur " + groupe.length);
+        }
+        if (groupe[n] == null) {
+            groupe[n] = new Valeurs(modele.champsGroupe, modele.groupeBase + n * modele.groupePas);
+        }
+        return groupe[n];
+    }
+
+    /** Décode immédiatement tous les champs, occurrences comprises. */
+    public EbcdicRecordView materialiser() {
+        if (estCorps()) {
+            fixes.materialiser();
+            for (int n = 0; n < groupe.length; n++) {
+                occurrence(n).materialiser();
+            }
+        }
+        return this;
+    }
+
+    private Valeurs corps() {
+        if (!estCorps()) {
+            throw new IllegalStateException("En-tête ou pied de page : seule la ligne est disponible");
+        }
+        return fixes;
+    }
+
+    /** Champs d'un niveau de l'enregistrement (champs fixes ou une occurrence du groupe), décodés à la demande. */
+    public final class Valeurs {
+        private final Champs champs;
+        private final int base;
+        private final String[] textes;
+        private final long[] nombres;
+        private final boolean[] decodes;
+
+        private Valeurs(Champs champs, int base) {
+            this.champs = champs;
+            this.base = base;
+            this.textes = new String[champs.liste.size()];
+            this.nombres = new long[champs.liste.size()];
+            this.decodes = new boolean[champs.liste.size()];
+        }
+
+        /** Champ texte (DISPLAY), décodé avec le codec de la disposition puis trim. */
+        public String texte(String nom) {
+            int i = champs.index(champs.textes, nom);
+            if (!decodes[i]) {
+                textes[i] = decoderTexte(i);
+                decodes[i] = true;
+            }
+            return textes[i];
+        }
+
+        /** Champ COMP-3 (au plus 9 octets) ou binaire, valeur entière non mise à l'échelle. */
+        public long nombre(String nom) {
+            int i = champs.index(champs.nombres, nom);
+            if (!decodes[i]) {
+                nombres[i] = decoderNombre(i);
+                decodes[i] = true;
+            }
+            return nombres[i];
+        }
+
+        /**
+         * Champ COMP-3 avec {@code echelle} décimales implicites, null si vide ou invalide. Au-delà
+         * de 9 octets, la valeur ne tient pas dans le cache et est décodée à chaque appel.
+         */
+        public BigDecimal decimal(String nom, int echelle) {
+            int i = champs.index(champs.nombres, nom);
+            EbcdicRecordLayout.Champ champ = champs.liste.get(i);
+            if (champ.getType() == EbcdicRecordLayout.TypeChamp.COMP3 && champ.getLongueur() > 9) {
+                return PackedDecimal.decoderDecimal(ByteBuffer.wrap(octets), base + champ.getOffset(),
+                        champ.getLongueur(), echelle);
+            }
+            long valeur = nombre(nom);
+            return valeur == PackedDecimal.VIDE || valeur == PackedDecimal.INVALIDE
+                    ? null : BigDecimal.valueOf(valeur, echelle);
+        }
+
+        private void materialiser() {
+            for (int i = 0; i < decodes.length; i++) {
+                if (decodes[i]) {
+                    continue;
+                }
+                EbcdicRecordLayout.Champ champ = champs.liste.get(i);
+                if (champ.getType() == EbcdicRecordLayout.TypeChamp.DISPLAY) {
+                    textes[i] = decoderTexte(i);
+                } else if (champ.getType() == EbcdicRecordLayout.TypeChamp.BINAIRE || champ.getLongueur() <= 9) {
+                    nombres[i] = decoderNombre(i);
+                } else {
+                    // COMP-3 trop long pour un long : lu par decimal() à chaque appel
+                    continue;
+                }
+                decodes[i] = true;
+            }
+        }
+
+        private String decoderTexte(int i) {
+            EbcdicRecordLayout.Champ champ = champs.liste.get(i);
+            char[] caracteres = new char[champ.getLongueur()];
+            champs.codecs[i].decode(octets, base + champ.getOffset(), champ.getLongueur(), caracteres, 0);
+            return new String(caracteres).trim();
+        }
+
+        private long decoderNombre(int i) {
+            EbcdicRecordLayout.Champ champ = champs.liste.get(i);
+            int offset = base + champ.getOffset();
+            if (champ.getType() == EbcdicRecordLayout.TypeChamp.BINAIRE) {
+                return binaire(octets, offset, champ.getLongueur());
+            }
+            if (champ.getLongueur() > 9) {
+                // 17 chiffres au plus dans un long
+                throw new IllegalArgumentException("Champ COMP-3 " + champ.getNom() + " trop long pour un long : utiliser decimal()");
+            }
+            return PackedDecimal.decoderLong(octets, offset, champ.getLongueur());
+        }
+    }
+
+    // Entier binaire big-endian signé, comme EbcdicFieldView#binaire
+    private static long binaire(byte[] octets, int offset, int taille) {
+        long valeur = 0;
+        for (int i = 0; i < taille; i++) {
+            valeur = (valeur << 8) | (octets[offset + i] & 0xFF);
+        }
+        if (taille < 8) {
+            int decalage = 64 - 8 * taille;
+            valeur = (valeur << decalage) >> decalage;
+        }
+        return valeur;
+    }
+
+    // Champs d'un niveau résolus une fois par nom : texte d'un côté, COMP-3 et binaire de
+    // l'autre, une disposition pouvant lire le même nom sous les deux formes (champ9 de V2)
+    private static final class Champs {
+        final List<EbcdicRecordLayout.Champ> liste;
+        final EbcdicCodec[] codecs;
+        final Map<String, Integer> textes = new HashMap<>();
+        final Map<String, Integer> nombres = new HashMap<>();
+        final int etendue;
+
+        Champs(EbcdicRecordLayout layout, List<EbcdicRecordLayout.Champ> liste) {
+            this.liste = liste;
+            this.codecs = new EbcdicCodec[liste.size()];
+            int fin = 0;
+            for (int i = 0; i < liste.size(); i++) {
+                EbcdicRecordLayout.Champ champ = liste.get(i);
+                if (champ.getType() == EbcdicRecordLayout.TypeChamp.DISPLAY) {
+                    codecs[i] = layout.codec(champ.isImprimable());
+                    textes.putIfAbsent(champ.getNom(), i);
+                } else {
+                    nombres.putIfAbsent(champ.getNom(), i);
+                }
+                fin = Math.max(fin, champ.getOffset() + champ.getLongueur());
+            }
+            this.etendue = fin;
+        }
+
+        int index(Map<String, Integer> noms, String nom) {
+            Integer i = noms.get(nom);
+            if (i == null) {
+                throw new IllegalArgumentException("Champ " + nom + " absent de la disposition");
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Création des vues d'une disposition : noms, codecs et étendue des champs résolus une
+     * fois. Utilisable comme {@link EbcdicRecordMapper} du corps, {@link #lignes()} servant
+     * à l'en-tête et au pied de page.
+     */
+    public static final class Modele implements EbcdicRecordMapper<EbcdicRecordView> {
+        private final EbcdicDecoderPlan plan;
+        private final Champs champs;
+        private final Champs champsGroupe;
+        private final int groupeBase;
+        private final int groupePas;
+        private final boolean controleLongueur;
+        private final boolean materialiser;
+
+        private Modele(EbcdicRecordLayout layout, boolean materialiser) {
+            this.plan = layout.plan();
+            this.champs = new Champs(layout, layout.getChamps());
+            this.champsGroupe = new Champs(layout, layout.getChampsGroupe());
+            this.groupeBase = layout.getGroupeBase();
+            this.groupePas = layout.getGroupePas();
+            this.controleLongueur = layout.isControleLongueur();
+            this.materialiser = materialiser;
+        }
+
+        /**
+         * Vue sur une copie de l'enregistrement.
+         *
+         * @throws IOException           champ au-delà de 20000 octets alors que des données suivent
+         * @throws NumberFormatException compteur d'occurrences invalide
+         */
+        @Override
+        public EbcdicRecordView mapper(ByteBuffer vue, int debut, int longueur, boolean resteDonnees,
+                                       EbcdicFieldView champ) throws IOException {
+            int occurrences = plan.occurrences(vue, debut, longueur, champ);
+            int fin = champs.etendue;
+            if (occurrences > 0) {
+                fin = Math.max(fin, groupeBase + (occurrences - 1) * groupePas + champsGroupe.etendue);
+            }
+            if (controleLongueur) {
+                EbcdicOutils.verifierChamp(fin, resteDonnees);
+            }
+            int lisibles = Math.min(longueur, TAILLE_MAX);
+            byte[] octets = new byte[Math.max(lisibles, fin)];
+            vue.get(debut, octets, 0, lisibles);
+            EbcdicRecordView resultat = new EbcdicRecordView(this, octets, occurrences);
+            return materialiser ? resultat.materialiser() : resultat;
+        }
+
+        /** LineMapper de l'en-tête et du pied de page : vue réduite à la ligne ASCII. */
+        public LineMapper<EbcdicRecordView> lignes() {
+            return (ligne, numero) -> new EbcdicRecordView(ligne);
+        }
+    }
+}
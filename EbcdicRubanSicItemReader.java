@@ -0,0 +1,224 @@
+import java.io.IOException;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.support.ItemStreamSupport;
+import org.springframework.core.io.Resource;
+
+/**
+ * Lecture en flux du ruban SIC EBCDIC : chaque enregistrement est découpé, décodé comme
+ * par plcConvert puis transmis au LineMapper, sans fichier ASCII intermédiaire ni liste
+ * complète en mémoire.
+ * <p>
+ * À chaque commit, la position en octets du prochain enregistrement, le numéro du dernier
+ * enregistrement lu et la partie du fichier en cours (en-tête, corps, pied de page) sont
+ * sauvegardés dans l'ExecutionContext ; une exécution relancée reprend à cette position
+ * au lieu de relire le fichier depuis le début.
+ * <p>
+ * Une plage ({@link #plage}) limite la lecture à une partie du corps, pour un step
+ * partitionné ({@link EbcdicRangePartitioner}).
+ * <p>
+ * Construit sur une {@link Resource} (flux MFT), le lecteur consomme le flux une seule
+ * fois au fil du téléchargement ({@link EbcdicPipeInputStream}) ; une reprise relit alors
+ * le flux depuis le début et saute les octets déjà traités.
+ * <p>
+ * Avec {@link #corpsDirect}, le corps est transformé en objet directement depuis les octets
+ * ({@link EbcdicDtoMapper}, ou {@link EbcdicRecordView} décodée à la demande), sans ligne
+ * ASCII ; l'en-tête et le pied de page restent des lignes transmises au LineMapper.
+ * <p>
+ * Avec des métriques ({@link EbcdicConversionProbe}, {@link #metriques}), le découpage et le
+ * décodage de chaque corps sont comptés et chronométrés.
+ */
+public class EbcdicRubanSicItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String CLE_POSITION = "position";
+    private static final String CLE_NUMERO = "numero";
+    private static final String CLE_PARTIE = "partie";
+
+    private enum Partie { ENTETE, CORPS, PIED, FIN }
+
+    private final String fichier;
+    private final LineMapper<T> lineMapper;
+    private final EbcdicOutils.ModeLecture mode;
+    private final Resource ressource;
+    private final int capaciteTampon;
+    private final SicRecordConverter convertisseur;
+    private final EbcdicFieldView champ = new EbcdicFieldView();
+    private EbcdicRecordMapper<T> mapperCorps;
+    private EbcdicConversionProbe metriques = EbcdicConversionProbe.AUCUNE;
+
+    // Plage lue : tout le fichier par défaut
+    private long plageDebut;
+    private long plageFin = Long.MAX_VALUE;
+    private int numeroDebut;
+    private boolean lireEntete = true;
+    private boolean lirePied = true;
+
+    private EbcdicFramer framer;
+    private Partie partie;
+    // Position sauvegardée (après le dernier enregistrement décodé) et position du framer
+    private long position;
+    private long positionLue;
+    private int numero;
+
+    public EbcdicRubanSicItemReader(String fichier, LineMapper<T> lineMapper) {
+        this(fichier, lineMapper, EbcdicOutils.ModeLecture.FLUX, EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    public EbcdicRubanSicItemReader(String fichier, LineMapper<T> lineMapper,
+                                    EbcdicOutils.ModeLecture mode, EbcdicRecordLayout layout) {
+        this.fichier = fichier;
+        this.lineMapper = lineMapper;
+        this.mode = mode;
+        this.ressource = null;
+        this.capaciteTampon = 0;
+        this.convertisseur = new SicRecordConverter(layout);
+        setName("ebcdicRubanSicItemReader");
+    }
+
+    /**
+     * Lecture d'un flux distant sans fichier intermédiaire.
+     *
+     * @param capaciteTampon taille de l'anneau entre le téléchargement et le décodage
+     */
+    public EbcdicRubanSicItemReader(Resource ressource, LineMapper<T> lineMapper,
+                                    EbcdicRecordLayout layout, int capaciteTampon) {
+        this.fichier = ressource.getDescription();
+        this.lineMapper = lineMapper;
+        this.mode = EbcdicOutils.ModeLecture.FLUX;
+        this.ressource = ressource;
+        this.capaciteTampon = capaciteTampon;
+        this.convertisseur = new SicRecordConverter(layout);
+        setName("ebcdicRubanSicItemReader");
+    }
+
+    /**
+     * Limite la lecture aux enregistrements du corps commençant dans [debut, fin).
+     *
+     * @param numeroDebut numéro du dernier enregistrement précédant la plage
+     * @param entete      la plage commence par l'en-tête (debut vaut alors 0)
+     * @param pied        la plage se termine par le pied de page
+     */
+    public void plage(long debut, long fin, int numeroDebut, boolean entete, boolean pied) {
+        this.plageDebut = debut;
+        this.plageFin = fin;
+        this.numeroDebut = numeroDebut;
+        this.lireEntete = entete;
+        this.lirePied = pied;
+    }
+
+    /** Corps lu sans ligne ASCII intermédiaire : chaque enregistrement est transformé par {@code mapper}. */
+    public void corpsDirect(EbcdicRecordMapper<T> mapper) {
+        this.mapperCorps = mapper;
+    }
+
+    /** Métriques alimentées par le corps ; un même objet peut être partagé par les partitions d'un step. */
+    public void metriques(EbcdicConversionProbe metriques) {
+        this.metriques = metriques;
+        convertisseur.metriques(metriques);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        partie = lireEntete ? Partie.ENTETE : Partie.CORPS;
+        position = plageDebut;
+        numero = numeroDebut;
+        if (executionContext.containsKey(getExecutionContextKey(CLE_POSITION))) {
+            position = executionContext.getLong(getExecutionContextKey(CLE_POSITION));
+            numero = executionContext.getInt(getExecutionContextKey(CLE_NUMERO));
+            partie = Partie.valueOf(executionContext.getString(getExecutionContextKey(CLE_PARTIE)));
+        }
+        positionLue = position;
+        try {
+            framer = ressource != null
+                    ? new EbcdicRecordFramer(new EbcdicPipeInputStream(ressource.getInputStream(), capaciteTampon))
+                    : EbcdicOutils.ouvrirFramer(fichier, mode);
+            if (position > 0) {
+                framer.reprendreA(position);
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Ouverture impossible du fichier EBCDIC : " + fichier, e);
+        }
+    }
+
+    @Override
+    public T read() throws Exception {
+        return lire();
+    }
+
+    // Même enchaînement que plcConvert : en-tête, corps tant qu'il reste 1390 octets, pied de page
+    private T lire() throws Exception {
+        switch (partie) {
+            case ENTETE:
+                partie = Partie.CORPS;
+                if (framer.suivant(10)) {
+                    position = positionLue = framer.positionSuivante();
+                    return mapperLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
+                }
+                return lire();
+            case CORPS:
+                long top = metriques.top();
+                if (positionLue < plageFin && framer.disponible() >= 1390) {
+                    framer.suivant(1390);
+                    positionLue = framer.positionSuivante();
+                    boolean resteDonnees = framer.disponible() > 0;
+                    top = metriques.lecture(top);
+                    if (mapperCorps != null) {
+                        T item = mapperCorps.mapper(framer.vue(), framer.debut(), framer.longueur(), resteDonnees, champ);
+                        // Transformation directe : comptée comme décodage, sans le détail par champ
+                        metriques.enregistrement(framer.longueur(), metriques.top() - top);
+                        position = positionLue;
+                        numero++;
+                        return item;
+                    }
+                    String ligne = convertisseur.convertirCorps(framer.vue(), framer.debut(), framer.longueur(),
+                            resteDonnees).toString();
+                    // Position avancée seulement une fois l'enregistrement décodé : une erreur de
+                    // décodage est reproduite à la reprise au lieu d'être sautée
+                    position = positionLue;
+                    return mapperLigne(ligne);
+                }
+                partie = lirePied ? Partie.PIED : Partie.FIN;
+                return lire();
+            case PIED:
+                partie = Partie.FIN;
+                if (framer.suivant(10)) {
+                    position = positionLue = framer.positionSuivante();
+                    return mapperLigne(convertisseur.convertirEntete(framer.vue(), framer.debut(), framer.longueur()));
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private T mapperLigne(String ligne) throws Exception {
+        numero++;
+        return lineMapper.mapLine(ligne, numero);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        executionContext.putLong(getExecutionContextKey(CLE_POSITION), position);
+        executionContext.putInt(getExecutionContextKey(CLE_NUMERO), numero);
+        executionContext.putString(getExecutionContextKey(CLE_PARTIE), partie.name());
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        try {
+            if (framer != null) {
+                framer.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Fermeture impossible du fichier EBCDIC : " + fichier, e);
+        } finally {
+            framer = null;
+        }
+    }
+}
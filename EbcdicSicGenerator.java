@@ -0,0 +1,311 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de fichiers ruban SIC synthétiques, pour les tests de charge, les tests
+ * d'intégration des jobs et les benchmarks.
+ * <p>
+ * Les enregistrements suivent une disposition ({@link EbcdicRecordLayout#RUBAN_SIC} par
+ * défaut) : champs texte en EBCDIC imprimable, champs COMP-3 valides, compteur d'occurrences
+ * valide suivi du groupe répété, délimiteur en fin d'enregistrement. Le fichier est produit
+ * en flux, sans limite de taille, et ne dépend que de la graine : deux générations avec la
+ * même graine et les mêmes réglages donnent les mêmes octets.
+ * <p>
+ * Les occurrences du ruban SIC se chevauchent (pas de 4 octets, champs texte de 100) : des
+ * octets COMP-3 sont relus comme texte brut par les occurrences suivantes et peuvent donner
+ * des fins de ligne dans la sortie de plcConvert, comme sur les fichiers réels.
+ * <p>
+ * Ligne de commande :
+ * <pre>
+ * java EbcdicSicGenerator &lt;fichier&gt; &lt;taille : 500000 | 200M | 4G&gt; [graine] [occurrences moyennes] [occurrences max]
+ * </pre>
+ * Une taille suffixée K, M ou G est une taille de fichier approchée ; sans suffixe, un
+ * nombre d'enregistrements.
+ */
+public final class EbcdicSicGenerator {
+
+    private static final Charset EBCDIC = Charset.forName("Cp037");
+    private static final byte DELIMITEUR = EbcdicRecordFramer.DELIMITEUR;
+    private static final int TAILLE_MAX = EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX;
+
+    // Octets EBCDIC imprimables : espace, lettres majuscules, chiffres, ponctuation courante
+    private static final byte[] IMPRIMABLES = " ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789.,-/'".getBytes(EBCDIC);
+
+    private final EbcdicRecordLayout layout;
+    private final SplittableRandom aleatoire;
+    // Fin du dernier champ fixe et étendue d'une occurrence du groupe
+    private final int finChampsFixes;
+    private final int etendueGroupe;
+
+    private double occurrencesMoyenne = 8;
+    private int occurrencesMax = 40;
+    private int occurrencesFixes = -1;
+    private double partNonImprimable = 0.01;
+    private double partPackedFF = 0.02;
+    private double partNegatifs = 0.1;
+    private long enregistrementsEcrits;
+
+    public EbcdicSicGenerator(long graine) {
+        this(graine, EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    public EbcdicSicGenerator(long graine, EbcdicRecordLayout layout) {
+        this.layout = layout;
+        this.aleatoire = new SplittableRandom(graine);
+        this.finChampsFixes = Math.max(fin(layout.getChamps(), 0),
+                layout.getCompteur() != null ? layout.getCompteur().getOffset() + layout.getCompteur().getLongueur() : 0);
+        this.etendueGroupe = fin(layout.getChampsGroupe(), 0);
+    }
+
+    private static int fin(List<EbcdicRecordLayout.Champ> champs, int base) {
+        int fin = 0;
+        for (EbcdicRecordLayout.Champ champ : champs) {
+            fin = Math.max(fin, base + champ.getOffset() + champ.getLongueur());
+        }
+        return fin;
+    }
+
+    /** Nombre moyen d'occurrences du groupe répété (loi géométrique bornée par {@link #occurrencesMax}). */
+    public EbcdicSicGenerator occurrencesMoyenne(double moyenne) {
+        this.occurrencesMoyenne = moyenne;
+        return this;
+    }
+
+    public EbcdicSicGenerator occurrencesMax(int max) {
+        this.occurrencesMax = max;
+        return this;
+    }
+
+    /** Même nombre d'occurrences pour tous les enregistrements (benchmarks). */
+    public EbcdicSicGenerator occurrences(int nombre) {
+        this.occurrencesFixes = nombre;
+        return this;
+    }
+
+    /** Part d'octets de contrôle EBCDIC dans les champs texte imprimables (lus '?'). */
+    public EbcdicSicGenerator partNonImprimable(double part) {
+        this.partNonImprimable = part;
+        return this;
+    }
+
+    /** Part de champs COMP-3 entièrement à 0xFF (valeur absente). */
+    public EbcdicSicGenerator partPackedFF(double part) {
+        this.partPackedFF = part;
+        return this;
+    }
+
+    public EbcdicSicGenerator partNegatifs(double part) {
+        this.partNegatifs = part;
+        return this;
+    }
+
+    /** En-tête de 10 octets, délimiteur compris. */
+    public byte[] entete() {
+        return ligneCourte("ENTETESIC");
+    }
+
+    /** Pied de page de 10 octets portant le nombre d'enregistrements générés (modulo 10^6). */
+    public byte[] piedDePage() {
+        return ligneCourte(String.format("FIN%06d", enregistrementsEcrits % 1_000_000));
+    }
+
+    private static byte[] ligneCourte(String texte) {
+        byte[] ligne = Arrays.copyOf(texte.getBytes(EBCDIC), 10);
+        ligne[9] = DELIMITEUR;
+        return ligne;
+    }
+
+    /**
+     * Écrit un enregistrement du corps, délimiteur compris, au début de {@code dst}
+     * (au moins {@value EbcdicRecordFramer#TAILLE_ENREGISTREMENT_MAX} octets).
+     *
+     * @return la longueur de l'enregistrement
+     */
+    public int enregistrement(byte[] dst) {
+        int occurrences = tirerOccurrences();
+        int fin = Math.max(1390, finChampsFixes);
+        if (occurrences > 0) {
+            fin = Math.max(fin, layout.getGroupeBase() + (occurrences - 1) * layout.getGroupePas() + etendueGroupe);
+        }
+        // Quelques octets de remplissage, comme les enregistrements réels de longueur variable
+        int longueur = Math.min(fin + aleatoire.nextInt(16), TAILLE_MAX - 1) + 1;
+        remplirTexte(dst, 0, longueur - 1, false);
+
+        for (EbcdicRecordLayout.Champ champ : layout.getChamps()) {
+            remplirChamp(dst, champ.getOffset(), champ, longueur - 1);
+        }
+        for (int n = 0; n < occurrences; n++) {
+            int base = layout.getGroupeBase() + n * layout.getGroupePas();
+            for (EbcdicRecordLayout.Champ champ : layout.getChampsGroupe()) {
+                remplirChamp(dst, base + champ.getOffset(), champ, longueur - 1);
+            }
+        }
+        // Compteur en dernier : les champs qui le recouvrent ne doivent pas le rendre invalide
+        EbcdicRecordLayout.Champ compteur = layout.getCompteur();
+        if (compteur != null) {
+            if (compteur.getType() == EbcdicRecordLayout.TypeChamp.BINAIRE) {
+                ecrireBinaire(dst, compteur.getOffset(), compteur.getLongueur(), occurrences);
+            } else {
+                ecrirePacked(dst, compteur.getOffset(), compteur.getLongueur(), occurrences, false);
+            }
+        }
+        // Un délimiteur au-delà de 1389 octets couperait l'enregistrement
+        for (int i = 1389; i < longueur - 1; i++) {
+            if (dst[i] == DELIMITEUR) {
+                dst[i] = IMPRIMABLES[0];
+            }
+        }
+        dst[longueur - 1] = DELIMITEUR;
+        enregistrementsEcrits++;
+        return longueur;
+    }
+
+    public byte[] enregistrement() {
+        byte[] tampon = new byte[TAILLE_MAX];
+        return Arrays.copyOf(tampon, enregistrement(tampon));
+    }
+
+    /** En-tête, {@code nombre} enregistrements puis pied de page. */
+    public void ecrire(OutputStream out, long nombre) throws IOException {
+        byte[] tampon = new byte[TAILLE_MAX];
+        out.write(entete());
+        for (long i = 0; i < nombre; i++) {
+            out.write(tampon, 0, enregistrement(tampon));
+        }
+        out.write(piedDePage());
+    }
+
+    /** Écrit le fichier et retourne sa taille en octets. */
+    public long ecrire(Path fichier, long nombre) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(fichier), 1 << 20)) {
+            ecrire(out, nombre);
+        }
+        return Files.size(fichier);
+    }
+
+    /** Nombre d'enregistrements pour approcher {@code taille} octets avec les réglages courants. */
+    public long nombrePourTaille(long taille) {
+        int occurrences = occurrencesFixes >= 0 ? occurrencesFixes
+                : (int) Math.min(Math.round(occurrencesMoyenne), occurrencesMax);
+        long moyenne = Math.max(1390, Math.max(finChampsFixes,
+                layout.getGroupeBase() + Math.max(occurrences - 1, 0) * layout.getGroupePas() + etendueGroupe)) + 8;
+        return Math.max(0, (taille - 20) / moyenne);
+    }
+
+    private int tirerOccurrences() {
+        if (occurrencesFixes >= 0) {
+            return occurrencesFixes;
+        }
+        if (occurrencesMax <= 0 || occurrencesMoyenne <= 0) {
+            return 0;
+        }
+        // Loi géométrique : beaucoup d'enregistrements avec peu d'occurrences, quelques-uns avec beaucoup
+        double p = 1 / (occurrencesMoyenne + 1);
+        int n = (int) (Math.log(1 - aleatoire.nextDouble()) / Math.log(1 - p));
+        return Math.min(n, occurrencesMax);
+    }
+
+    private void remplirChamp(byte[] dst, int offset, EbcdicRecordLayout.Champ champ, int longueurUtile) {
+        int taille = Math.min(champ.getLongueur(), longueurUtile - offset);
+        if (taille <= 0) {
+            return;
+        }
+        switch (champ.getType()) {
+            case DISPLAY:
+                // Octets de contrôle seulement là où ils sont masqués en '?' : un champ brut
+                // les recopierait tels quels (fins de ligne EBCDIC comprises)
+                remplirTexte(dst, offset, taille, champ.isImprimable());
+                break;
+            case COMP3:
+                if (aleatoire.nextDouble() < partPackedFF) {
+                    Arrays.fill(dst, offset, offset + taille, (byte) 0xFF);
+                } else {
+                    ecrirePacked(dst, offset, taille, -1, aleatoire.nextDouble() < partNegatifs);
+                }
+                break;
+            default:
+                ecrireBinaire(dst, offset, taille, aleatoire.nextLong());
+                break;
+        }
+    }
+
+    private void remplirTexte(byte[] dst, int offset, int taille, boolean controles) {
+        for (int i = offset; i < offset + taille; i++) {
+            dst[i] = controles && aleatoire.nextDouble() < partNonImprimable
+                    // Octets de contrôle EBCDIC, délimiteur exclu
+                    ? (byte) (0x0B + aleatoire.nextInt(0x35))
+                    : IMPRIMABLES[aleatoire.nextInt(IMPRIMABLES.length)];
+        }
+    }
+
+    /**
+     * Nombre COMP-3 de {@code 2 * taille - 1} chiffres, signe C (D si négatif).
+     * Une valeur négative tire des chiffres aléatoires, zéros de tête compris.
+     */
+    private void ecrirePacked(byte[] dst, int offset, int taille, long valeur, boolean negatif) {
+        int chiffres = 2 * taille - 1;
+        int significatifs = valeur >= 0 ? chiffres : 1 + aleatoire.nextInt(chiffres);
+        long reste = valeur;
+        int nibble = 2 * taille - 1;
+        int signe = negatif ? 0x0D : 0x0C;
+        byte[] nibbles = new byte[2 * taille];
+        nibbles[nibble] = (byte) signe;
+        for (int i = nibble - 1; i >= 0; i--) {
+            int position = nibble - 1 - i;
+            if (valeur >= 0) {
+                nibbles[i] = (byte) (reste % 10);
+                reste /= 10;
+            } else {
+                nibbles[i] = (byte) (position < significatifs ? aleatoire.nextInt(10) : 0);
+            }
+        }
+        for (int i = 0; i < taille; i++) {
+            dst[offset + i] = (byte) (nibbles[2 * i] << 4 | nibbles[2 * i + 1]);
+        }
+    }
+
+    private void ecrireBinaire(byte[] dst, int offset, int taille, long valeur) {
+        for (int i = taille - 1; i >= 0; i--) {
+            dst[offset + i] = (byte) valeur;
+            valeur >>= 8;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : EbcdicSicGenerator <fichier> <taille : 500000 | 200M | 4G> [graine] [occurrences moyennes] [occurrences max]");
+            System.exit(2);
+        }
+        Path fichier = Paths.get(args[0]);
+        long graine = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        EbcdicSicGenerator generateur = new EbcdicSicGenerator(graine);
+        if (args.length > 3) {
+            generateur.occurrencesMoyenne(Double.parseDouble(args[3]));
+        }
+        if (args.length > 4) {
+            generateur.occurrencesMax(Integer.parseInt(args[4]));
+        }
+
+        String taille = args[1].toUpperCase();
+        long nombre;
+        if (taille.endsWith("K") || taille.endsWith("M") || taille.endsWith("G")) {
+            int decalage = taille.endsWith("K") ? 10 : taille.endsWith("M") ? 20 : 30;
+            nombre = generateur.nombrePourTaille(Long.parseLong(taille.substring(0, taille.length() - 1)) << decalage);
+        } else {
+            nombre = Long.parseLong(taille);
+        }
+
+        long debut = System.nanoTime();
+        long octets = generateur.ecrire(fichier, nombre);
+        System.out.printf("%d enregistrements, %d octets écrits dans %s en %d ms%n",
+                nombre, octets, fichier, (System.nanoTime() - debut) / 1_000_000);
+    }
+}
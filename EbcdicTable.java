@@ -0,0 +1,232 @@
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table de conversion EBCDIC vers ASCII précalculée sur 256 entrées, une par page de code,
+ * variante de substitutions (C#, Bedel) et caractères conservés. Les substitutions et le
+ * masquage des caractères non imprimables sont déjà appliqués dans la table : décoder un
+ * octet revient à une seule lecture de tableau, sans Charset, sans regex, sans branche et
+ * sans allocation intermédiaire. Chaque table est construite au premier usage puis mise
+ * en cache ({@link #pour}). Les convertisseurs y accèdent au travers d'{@link EbcdicCodec}.
+ * <p>
+ * Si le module {@code jdk.incubator.vector} est chargé ({@code --add-modules
+ * jdk.incubator.vector}), les champs d'au moins {@link #SEUIL_VECTORIEL} octets sont
+ * décodés par {@code EbcdicVectorDecoder}. Le choix est fait une fois au démarrage ;
+ * {@code -Debcdic.vectoriel=false} force le chemin scalaire. Le décodeur vectoriel est
+ * chargé par réflexion au travers de {@link Vectoriel} : seule sa classe a besoin du module
+ * pour compiler, le reste du code se compile et tourne sans lui.
+ */
+public final class EbcdicTable {
+
+    // Octets de substitution repris du C# (voir conversionEBCDICToAscii)
+    private static final int QUESTION_MARK = 0x6D;
+    private static final int SQUARE_BRACKET = 0xBA;
+    private static final int WEIRD1 = 0x95;
+    private static final int CIRCUMFLEX = 0xB0;
+    private static final int PIPE = 0x79;
+    private static final int BROKEN_BAR = 0x8C;
+
+    /** Remplacements octet → octet, appliqués dans l'ordre comme dans le C#. */
+    private static final int[][] SUBSTITUTIONS_CSHARP = {
+            {SQUARE_BRACKET, QUESTION_MARK},
+            {CIRCUMFLEX, QUESTION_MARK},
+            {PIPE, QUESTION_MARK},
+            {BROKEN_BAR, PIPE},
+            {WEIRD1, CIRCUMFLEX}
+    };
+
+    /**
+     * Variante de ConverterBedel : mêmes remplacements que le C#, mais sur d'autres octets
+     * ('[', '^' et '|' → '?', '¦' → '|', '¬' → '^').
+     * <p>
+     * Les octets des deux variantes sont ceux de Cp037 : pour les autres pages de code, les
+     * remplacements sont reportés sur les caractères correspondants.
+     */
+    private static final int[][] SUBSTITUTIONS_BEDEL = {
+            {0xBA, 0x6F},
+            {0xB0, 0x6F},
+            {0x4F, 0x6F},
+            {0x6A, 0x4F},
+            {0x5F, 0xB0}
+    };
+
+    /** Longueur de champ à partir de laquelle le chemin vectoriel est utilisé. */
+    static final int SEUIL_VECTORIEL = 64;
+
+    /** Décodage d'un champ complet, implémenté par {@code EbcdicVectorDecoder}. */
+    interface Vectoriel {
+
+        int decoder(byte[] src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement);
+
+        int decoder(byte[] src, int offset, int longueur, byte[] dst, int dstOffset, boolean imprimableSeulement);
+
+        int decoder(ByteBuffer src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement);
+    }
+
+    // Constructeur (brut, imprimable, accentués) du décodeur vectoriel, null si indisponible
+    private static final Constructor<? extends Vectoriel> DECODEUR_VECTORIEL = decodeurVectoriel();
+
+    /** Vrai si le décodage vectoriel est actif dans cette JVM. */
+    public static final boolean VECTORIEL = DECODEUR_VECTORIEL != null;
+
+    private static final int PROFILS = EbcdicCodec.Profil.values().length;
+    private static final int SORTIES = EbcdicCodec.Sortie.values().length;
+    private static final AtomicReferenceArray<EbcdicTable> TABLES =
+            new AtomicReferenceArray<>(EbcdicCodec.PageCode.values().length * PROFILS * SORTIES);
+
+    public static final EbcdicTable CP037 = pour(EbcdicCodec.PageCode.CP037, EbcdicCodec.Profil.CSHARP, EbcdicCodec.Sortie.ASCII);
+    public static final EbcdicTable BEDEL = pour(EbcdicCodec.PageCode.CP037, EbcdicCodec.Profil.BEDEL, EbcdicCodec.Sortie.ASCII);
+
+    private final char[] brut = new char[256];
+    private final char[] imprimable = new char[256];
+    private final byte[] brutOctets = new byte[256];
+    private final byte[] imprimableOctets = new byte[256];
+    // 1 pour les octets remplacés par '?' en mode imprimable (comptés par les métriques de conversion)
+    private final byte[] masque = new byte[256];
+    private final Vectoriel vectoriel;
+
+    private EbcdicTable(EbcdicCodec.PageCode pageCode, int[][] substitutions, EbcdicCodec.Sortie sortie) {
+        // Les Charset ne sont utilisés qu'une fois, à la construction de la table
+        String cp037 = toutesLesValeurs(EbcdicCodec.PageCode.CP037);
+        String decode = toutesLesValeurs(pageCode);
+        for (int b = 0; b < 256; b++) {
+            // Remplacements successifs, exprimés en caractères Cp037 (identique au
+            // remplacement octet par octet pour Cp037 lui-même)
+            char c = decode.charAt(b);
+            for (int[] substitution : substitutions) {
+                if (c == cp037.charAt(substitution[0])) {
+                    c = cp037.charAt(substitution[1]);
+                }
+            }
+            brut[b] = c;
+            imprimable[b] = sortie.imprimable(c) ? c : '?';
+            masque[b] = (byte) (sortie.imprimable(c) ? 0 : 1);
+            // Pages de code permutations de Latin-1 : chaque caractère tient sur un octet
+            brutOctets[b] = (byte) c;
+            imprimableOctets[b] = (byte) imprimable[b];
+        }
+        vectoriel = vectoriel(brutOctets, imprimableOctets, sortie == EbcdicCodec.Sortie.LATIN1);
+    }
+
+    private static Vectoriel vectoriel(byte[] brut, byte[] imprimable, boolean accentues) {
+        if (DECODEUR_VECTORIEL == null) {
+            return null;
+        }
+        try {
+            return DECODEUR_VECTORIEL.newInstance(brut, imprimable, accentues);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Décodeur vectoriel non instanciable", e);
+        }
+    }
+
+    private static String toutesLesValeurs(EbcdicCodec.PageCode pageCode) {
+        byte[] octets = new byte[256];
+        for (int b = 0; b < 256; b++) {
+            octets[b] = (byte) b;
+        }
+        return new String(octets, Charset.forName(pageCode.charset()));
+    }
+
+    /** Table partagée de la combinaison, construite au premier appel. */
+    public static EbcdicTable pour(EbcdicCodec.PageCode pageCode, EbcdicCodec.Profil profil, EbcdicCodec.Sortie sortie) {
+        int index = (pageCode.ordinal() * PROFILS + profil.ordinal()) * SORTIES + sortie.ordinal();
+        EbcdicTable table = TABLES.get(index);
+        if (table == null) {
+            int[][] substitutions = profil == EbcdicCodec.Profil.BEDEL ? SUBSTITUTIONS_BEDEL : SUBSTITUTIONS_CSHARP;
+            // Deux threads peuvent construire la même table : une seule est conservée
+            TABLES.compareAndSet(index, null, new EbcdicTable(pageCode, substitutions, sortie));
+            table = TABLES.get(index);
+        }
+        return table;
+    }
+
+    private static Constructor<? extends Vectoriel> decodeurVectoriel() {
+        if (!Boolean.parseBoolean(System.getProperty("ebcdic.vectoriel", "true"))) {
+            return null;
+        }
+        try {
+            // Absent tant que le module incubateur n'est pas ajouté à la ligne de commande
+            Class.forName("jdk.incubator.vector.ByteVector");
+            // Classe éventuellement absente du classpath si elle n'a pas été compilée avec le module
+            Class<? extends Vectoriel> classe = Class.forName("EbcdicVectorDecoder").asSubclass(Vectoriel.class);
+            if (!(Boolean) classe.getDeclaredMethod("utilisable").invoke(null)) {
+                return null;
+            }
+            Constructor<? extends Vectoriel> constructeur =
+                    classe.getDeclaredConstructor(byte[].class, byte[].class, boolean.class);
+            constructeur.setAccessible(true);
+            return constructeur;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Décode {@code longueur} octets de {@code src} à partir de {@code offset} dans {@code dst}.
+     *
+     * @return le nombre de caractères écrits
+     */
+    public int decoder(byte[] src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement) {
+        if (vectoriel != null && longueur >= SEUIL_VECTORIEL) {
+            return vectoriel.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+        }
+        char[] table = imprimableSeulement ? imprimable : brut;
+        for (int i = 0; i < longueur; i++) {
+            dst[dstOffset + i] = table[src[offset + i] & 0xFF];
+        }
+        return longueur;
+    }
+
+    /**
+     * Variante octet : chaque caractère est écrit sous forme d'unité ISO-8859-1
+     * (tous les caractères Cp037 sont compris entre U+0000 et U+00FF).
+     *
+     * @return le nombre d'octets écrits
+     */
+    public int decoder(byte[] src, int offset, int longueur, byte[] dst, int dstOffset, boolean imprimableSeulement) {
+        if (vectoriel != null && longueur >= SEUIL_VECTORIEL) {
+            return vectoriel.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+        }
+        byte[] table = imprimableSeulement ? imprimableOctets : brutOctets;
+        for (int i = 0; i < longueur; i++) {
+            dst[dstOffset + i] = table[src[offset + i] & 0xFF];
+        }
+        return longueur;
+    }
+
+    /** Variante lisant directement dans un tampon (projection mémoire comprise), par index absolu. */
+    public int decoder(ByteBuffer src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement) {
+        if (vectoriel != null && longueur >= SEUIL_VECTORIEL) {
+            return vectoriel.decoder(src, offset, longueur, dst, dstOffset, imprimableSeulement);
+        }
+        char[] table = imprimableSeulement ? imprimable : brut;
+        for (int i = 0; i < longueur; i++) {
+            dst[dstOffset + i] = table[src.get(offset + i) & 0xFF];
+        }
+        return longueur;
+    }
+
+    public char decoder(byte b, boolean imprimableSeulement) {
+        return imprimableSeulement ? imprimable[b & 0xFF] : brut[b & 0xFF];
+    }
+
+    /** Nombre d'octets de {@code src} qu'un décodage imprimable remplace par '?'. */
+    public int masques(ByteBuffer src, int offset, int longueur) {
+        int n = 0;
+        if (src.hasArray()) {
+            // Sans branche, directement dans le tableau (tampons du framer et des lots)
+            byte[] octets = src.array();
+            int debut = src.arrayOffset() + offset;
+            for (int i = debut; i < debut + longueur; i++) {
+                n += masque[octets[i] & 0xFF];
+            }
+            return n;
+        }
+        for (int i = 0; i < longueur; i++) {
+            n += masque[src.get(offset + i) & 0xFF];
+        }
+        return n;
+    }
+}
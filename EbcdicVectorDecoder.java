@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Décodage EBCDIC vectoriel ({@code jdk.incubator.vector}) : la table de 256 entrées est
+ * découpée en tranches de la largeur native (4 × 64 octets en AVX-512, 8 × 32 en AVX2),
+ * chaque bloc d'octets est traduit par permutation dans chaque tranche puis sélection
+ * selon les bits de poids fort, et les caractères non imprimables (hors 0x20–0x7E, et
+ * hors U+00A0–U+00FF si les accentués sont conservés) sont remplacés par '?' par comparaison.
+ * <p>
+ * Chargé par réflexion par {@link EbcdicTable} seulement si le module est présent au
+ * démarrage ({@code --add-modules jdk.incubator.vector}) ; c'est la seule classe qui a besoin
+ * du module pour compiler. La fin d'un champ plus courte qu'un vecteur passe par la table
+ * scalaire. Résultat identique au chemin scalaire.
+ */
+final class EbcdicVectorDecoder implements EbcdicTable.Vectoriel {
+
+    private static final VectorSpecies<Byte> ESPECE = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> ESPECE_CHAR = ShortVector.SPECIES_PREFERRED;
+    private static final int LARGEUR = ESPECE.length();
+    private static final int BITS_POSITION = Integer.numberOfTrailingZeros(LARGEUR);
+    private static final int TRANCHES = 256 / LARGEUR;
+
+    // Tranches déroulées en champs : dans un tableau parcouru en boucle, C2 ne supprime
+    // pas l'encapsulation des vecteurs et le chemin devient plus lent que la table scalaire
+    private final ByteVector t0, t1, t2, t3, t4, t5, t6, t7;
+    private final byte[] brut;
+    private final byte[] imprimable;
+    private final boolean accentues;
+
+    EbcdicVectorDecoder(byte[] brut, byte[] imprimable, boolean accentues) {
+        this.brut = brut;
+        this.imprimable = imprimable;
+        this.accentues = accentues;
+        t0 = tranche(brut, 0);
+        t1 = tranche(brut, 1);
+        t2 = tranche(brut, 2);
+        t3 = tranche(brut, 3);
+        t4 = tranche(brut, 4);
+        t5 = tranche(brut, 5);
+        t6 = tranche(brut, 6);
+        t7 = tranche(brut, 7);
+    }
+
+    private static ByteVector tranche(byte[] table, int numero) {
+        return numero < TRANCHES ? ByteVector.fromArray(ESPECE, table, numero * LARGEUR) : null;
+    }
+
+    /** Largeurs prises en charge : 64 octets (AVX-512) ou 32 octets (AVX2). */
+    static boolean utilisable() {
+        return (TRANCHES == 4 || TRANCHES == 8) && ESPECE_CHAR.length() * 2 == LARGEUR;
+    }
+
+    private ByteVector traduire(ByteVector source, boolean imprimableSeulement) {
+        VectorShuffle<Byte> permutation = source.and((byte) (LARGEUR - 1)).toShuffle();
+        ByteVector numero = source.lanewise(VectorOperators.LSHR, BITS_POSITION);
+        ByteVector resultat = t0.rearrange(permutation);
+        resultat = resultat.blend(t1.rearrange(permutation), numero.eq((byte) 1));
+        resultat = resultat.blend(t2.rearrange(permutation), numero.eq((byte) 2));
+        resultat = resultat.blend(t3.rearrange(permutation), numero.eq((byte) 3));
+        if (TRANCHES == 8) {
+            resultat = resultat.blend(t4.rearrange(permutation), numero.eq((byte) 4));
+            resultat = resultat.blend(t5.rearrange(permutation), numero.eq((byte) 5));
+            resultat = resultat.blend(t6.rearrange(permutation), numero.eq((byte) 6));
+            resultat = resultat.blend(t7.rearrange(permutation), numero.eq((byte) 7));
+        }
+        if (imprimableSeulement) {
+            // En signé, les octets 0x80–0xFF sont négatifs : « < 0x20 » les couvre aussi
+            VectorMask<Byte> masque = resultat.lt((byte) 0x20).or(resultat.eq((byte) 0x7F));
+            if (accentues) {
+                // Accentués U+00A0–U+00FF conservés : seuls 0x00–0x1F et 0x7F–0x9F sont masqués
+                masque = masque.and(resultat.lt((byte) 0xA0).or(resultat.compare(VectorOperators.GE, (byte) 0)));
+            }
+            resultat = resultat.blend((byte) '?', masque);
+        }
+        return resultat;
+    }
+
+    @Override
+    public int decoder(byte[] src, int offset, int longueur, byte[] dst, int dstOffset, boolean imprimableSeulement) {
+        int i = 0;
+        for (int fin = ESPECE.loopBound(longueur); i < fin; i += LARGEUR) {
+            traduire(ByteVector.fromArray(ESPECE, src, offset + i), imprimableSeulement)
+                    .intoArray(dst, dstOffset + i);
+        }
+        byte[] table = imprimableSeulement ? imprimable : brut;
+        for (; i < longueur; i++) {
+            dst[dstOffset + i] = table[src[offset + i] & 0xFF];
+        }
+        return longueur;
+    }
+
+    @Override
+    public int decoder(byte[] src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement) {
+        int i = 0;
+        for (int fin = ESPECE.loopBound(longueur); i < fin; i += LARGEUR) {
+            ecrireChars(traduire(ByteVector.fromArray(ESPECE, src, offset + i), imprimableSeulement), dst, dstOffset + i);
+        }
+        byte[] table = imprimableSeulement ? imprimable : brut;
+        for (; i < longueur; i++) {
+            dst[dstOffset + i] = (char) (table[src[offset + i] & 0xFF] & 0xFF);
+        }
+        return longueur;
+    }
+
+    @Override
+    public int decoder(ByteBuffer src, int offset, int longueur, char[] dst, int dstOffset, boolean imprimableSeulement) {
+        int i = 0;
+        for (int fin = ESPECE.loopBound(longueur); i < fin; i += LARGEUR) {
+            ByteVector source = ByteVector.fromByteBuffer(ESPECE, src, offset + i, ByteOrder.nativeOrder());
+            ecrireChars(traduire(source, imprimableSeulement), dst, dstOffset + i);
+        }
+        byte[] table = imprimableSeulement ? imprimable : brut;
+        for (; i < longueur; i++) {
+            dst[dstOffset + i] = (char) (table[src.get(offset + i) & 0xFF] & 0xFF);
+        }
+        return longueur;
+    }
+
+    // Élargissement octet → char sans extension de signe (caractères U+0000–U+00FF)
+    private static void ecrireChars(ByteVector octets, char[] dst, int dstOffset) {
+        ((ShortVector) octets.convertShape(VectorOperators.B2S, ESPECE_CHAR, 0))
+                .and((short) 0xFF).intoCharArray(dst, dstOffset);
+        ((ShortVector) octets.convertShape(VectorOperators.B2S, ESPECE_CHAR, 1))
+                .and((short) 0xFF).intoCharArray(dst, dstOffset + ESPECE_CHAR.length());
+    }
+}
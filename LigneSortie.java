@@ -0,0 +1,60 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Ligne de sortie réutilisable : tampon de caractères extensible, vidé à chaque
+ * enregistrement. Aucune allocation une fois la taille de ligne maximale atteinte.
+ */
+public final class LigneSortie {
+
+    private char[] chars = new char[4096];
+    private int longueur;
+
+    public void vider() {
+        longueur = 0;
+    }
+
+    /** Garantit la place pour {@code n} caractères de plus et retourne le tampon. */
+    public char[] reserver(int n) {
+        if (longueur + n > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(2 * chars.length, longueur + n));
+        }
+        return chars;
+    }
+
+    /** Valide {@code n} caractères écrits directement dans le tampon après {@link #reserver(int)}. */
+    public void avancer(int n) {
+        longueur += n;
+    }
+
+    public void ajouter(String texte) {
+        int n = texte.length();
+        reserver(n);
+        texte.getChars(0, n, chars, longueur);
+        longueur += n;
+    }
+
+    public void ajouter(char[] source, int offset, int n) {
+        reserver(n);
+        System.arraycopy(source, offset, chars, longueur, n);
+        longueur += n;
+    }
+
+    public char[] chars() {
+        return chars;
+    }
+
+    public int longueur() {
+        return longueur;
+    }
+
+    public void ecrire(Writer writer) throws IOException {
+        writer.write(chars, 0, longueur);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, longueur);
+    }
+}
@@ -0,0 +1,191 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Décodage du décimal condensé (COMP-3) directement depuis le tampon source, sans
+ * StringBuilder ni String intermédiaire.
+ * <p>
+ * Les conventions de {@link EbcdicOutils#conversionPackedToAscii} sont conservées :
+ * un champ entièrement à 0xFF est vide, un signe autre que C, D ou F est invalide,
+ * et un quartet chiffre supérieur à 9 est écrit sous forme de sa valeur décimale (« 12 »).
+ */
+public final class PackedDecimal {
+
+    /** Champ entièrement à 0xFF (chaîne vide en conversion texte). */
+    public static final long VIDE = Long.MIN_VALUE;
+    /** Signe invalide ou quartet chiffre supérieur à 9 (null en conversion texte). */
+    public static final long INVALIDE = Long.MIN_VALUE + 1;
+
+    // Au-delà, la valeur (17 chiffres) ne tient plus dans un long
+    private static final int LONGUEUR_MAX_LONG = 9;
+
+    private PackedDecimal() {
+    }
+
+    /**
+     * Valeur entière non mise à l'échelle du champ [offset, offset + longueur),
+     * ou {@link #VIDE} / {@link #INVALIDE}.
+     */
+    public static long decoderLong(ByteBuffer src, int offset, int longueur) {
+        if (longueur < 1 || longueur > LONGUEUR_MAX_LONG) {
+            throw new IllegalArgumentException("Longueur de champ COMP-3 invalide pour un long : " + longueur + " octets");
+        }
+        if (estVide(src, offset, longueur)) {
+            return VIDE;
+        }
+        int signe = src.get(offset + longueur - 1) & 0x0F;
+        if (signe != 0x0C && signe != 0x0D && signe != 0x0F) {
+            return INVALIDE;
+        }
+        long valeur = 0;
+        for (int i = 0; i < 2 * longueur - 1; i++) {
+            int chiffre = quartet(src, offset, i);
+            if (chiffre > 9) {
+                return INVALIDE;
+            }
+            valeur = valeur * 10 + chiffre;
+        }
+        return signe == 0x0D ? -valeur : valeur;
+    }
+
+    public static long decoderLong(byte[] src, int offset, int longueur) {
+        return decoderLong(ByteBuffer.wrap(src), offset, longueur);
+    }
+
+    /** Valeur avec {@code echelle} décimales implicites (PIC S9(n)V9(echelle)), ou null si vide ou invalide. */
+    public static BigDecimal decoderDecimal(ByteBuffer src, int offset, int longueur, int echelle) {
+        if (longueur <= LONGUEUR_MAX_LONG) {
+            long valeur = decoderLong(src, offset, longueur);
+            return valeur == VIDE || valeur == INVALIDE ? null : BigDecimal.valueOf(valeur, echelle);
+        }
+        if (estVide(src, offset, longueur)) {
+            return null;
+        }
+        int signe = src.get(offset + longueur - 1) & 0x0F;
+        if (signe != 0x0C && signe != 0x0D && signe != 0x0F) {
+            return null;
+        }
+        char[] chiffres = new char[2 * longueur - 1];
+        for (int i = 0; i < chiffres.length; i++) {
+            int chiffre = quartet(src, offset, i);
+            if (chiffre > 9) {
+                return null;
+            }
+            chiffres[i] = (char) ('0' + chiffre);
+        }
+        BigInteger valeur = new BigInteger(new String(chiffres));
+        return new BigDecimal(signe == 0x0D ? valeur.negate() : valeur, echelle);
+    }
+
+    /**
+     * Équivalent de {@code Integer.parseInt(conversionPackedToAscii(champ, 0))} pour un compteur
+     * d'occurrences, y compris les quartets supérieurs à 9 et les exceptions.
+     *
+     * @throws NumberFormatException champ vide, invalide ou hors des bornes d'un int
+     */
+    public static int compteur(ByteBuffer src, int offset, int longueur) {
+        if (longueur == 0 || estVide(src, offset, longueur)) {
+            throw new NumberFormatException("Compteur COMP-3 vide");
+        }
+        int signe = src.get(offset + longueur - 1) & 0x0F;
+        if (signe != 0x0C && signe != 0x0D && signe != 0x0F) {
+            throw new NumberFormatException("Signe COMP-3 invalide : " + signe);
+        }
+        long valeur = 0;
+        for (int i = 0; i < 2 * longueur - 1; i++) {
+            int chiffre = quartet(src, offset, i);
+            valeur = valeur * (chiffre > 9 ? 100 : 10) + chiffre;
+            if (valeur > 1L + Integer.MAX_VALUE) {
+                throw new NumberFormatException("Compteur COMP-3 hors bornes");
+            }
+        }
+        valeur = signe == 0x0D ? -valeur : valeur;
+        if (valeur > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Compteur COMP-3 hors bornes");
+        }
+        return (int) valeur;
+    }
+
+    /**
+     * Vrai si le champ n'est ni vide (0xFF) ni un COMP-3 valide : signe inconnu ou quartet
+     * supérieur à 9 ({@link #INVALIDE} pour {@link #decoderLong}), quelle que soit sa longueur.
+     */
+    public static boolean estInvalide(ByteBuffer src, int offset, int longueur) {
+        if (longueur == 0 || estVide(src, offset, longueur)) {
+            return false;
+        }
+        int signe = src.get(offset + longueur - 1) & 0x0F;
+        if (signe != 0x0C && signe != 0x0D && signe != 0x0F) {
+            return true;
+        }
+        for (int i = 0; i < 2 * longueur - 1; i++) {
+            if (quartet(src, offset, i) > 9) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Nombre maximal de caractères écrits par {@link #ecrireChiffres} pour ce champ. */
+    public static int tailleMaxChiffres(int longueur, int largeur) {
+        return Math.max(largeur, 2 * (2 * longueur - 1) + 1);
+    }
+
+    /**
+     * Écrit dans {@code dst} ce que produirait
+     * {@code padLeft(conversionPackedToAscii(champ, 0), largeur, '0')} : chiffres complétés
+     * à gauche par des zéros, y compris devant le signe moins ; un champ vide ou invalide
+     * donne {@code largeur} zéros.
+     *
+     * @return le nombre de caractères écrits (au plus {@link #tailleMaxChiffres})
+     */
+    public static int ecrireChiffres(ByteBuffer src, int offset, int longueur, int largeur, char[] dst, int dstOffset) {
+        int signe = longueur > 0 ? src.get(offset + longueur - 1) & 0x0F : 0;
+        if (longueur == 0 || estVide(src, offset, longueur) || (signe != 0x0C && signe != 0x0D && signe != 0x0F)) {
+            for (int i = 0; i < largeur; i++) {
+                dst[dstOffset + i] = '0';
+            }
+            return largeur;
+        }
+
+        int nbQuartets = 2 * longueur - 1;
+        int taille = signe == 0x0D ? 1 : 0;
+        for (int i = 0; i < nbQuartets; i++) {
+            taille += quartet(src, offset, i) > 9 ? 2 : 1;
+        }
+
+        int position = dstOffset;
+        for (int i = taille; i < largeur; i++) {
+            dst[position++] = '0';
+        }
+        if (signe == 0x0D) {
+            dst[position++] = '-';
+        }
+        for (int i = 0; i < nbQuartets; i++) {
+            int chiffre = quartet(src, offset, i);
+            if (chiffre > 9) {
+                dst[position++] = '1';
+                dst[position++] = (char) ('0' + chiffre - 10);
+            } else {
+                dst[position++] = (char) ('0' + chiffre);
+            }
+        }
+        return position - dstOffset;
+    }
+
+    // Quartet n° i du champ (quartet fort en premier), hors quartet de signe
+    private static int quartet(ByteBuffer src, int offset, int i) {
+        int octet = src.get(offset + (i >> 1));
+        return (i & 1) == 0 ? (octet >> 4) & 0x0F : octet & 0x0F;
+    }
+
+    private static boolean estVide(ByteBuffer src, int offset, int longueur) {
+        for (int i = 0; i < longueur; i++) {
+            if (src.get(offset + i) != (byte) 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Conversion d'un enregistrement du ruban SIC (en-tête, corps ou pied de page) en ligne ASCII,
+ * telle qu'écrite par plcConvert.
+ * <p>
+ * Le corps est décodé par le plan compilé de la disposition ({@link EbcdicRecordLayout}).
+ * Les tampons de travail et la ligne de sortie sont réutilisés d'un enregistrement à l'autre :
+ * une instance n'est pas thread-safe et doit rester confinée à un thread.
+ * <p>
+ * Avec des métriques ({@link EbcdicConversionProbe}, {@link #metriques}), chaque corps décodé est
+ * compté et chronométré ; plusieurs convertisseurs peuvent partager les mêmes métriques.
+ */
+public class SicRecordConverter {
+
+    private final byte[] array = new byte[EbcdicRecordFramer.TAILLE_ENREGISTREMENT_MAX];
+    private final EbcdicDecoderPlan plan;
+    private final EbcdicCodec codecEntete;
+    private final LigneSortie ligne = new LigneSortie();
+    private final ByteBuffer vueArray = ByteBuffer.wrap(array);
+    private final EbcdicFieldView champ = new EbcdicFieldView();
+    private EbcdicConversionProbe metriques = EbcdicConversionProbe.AUCUNE;
+    private EbcdicConversionProbe.Sonde sonde;
+
+    public SicRecordConverter() {
+        this(EbcdicRecordLayout.RUBAN_SIC);
+    }
+
+    public SicRecordConverter(EbcdicRecordLayout layout) {
+        this.plan = layout.plan();
+        this.codecEntete = layout.codec(true);
+    }
+
+    /** Métriques alimentées par les corps décodés ensuite ; {@link EbcdicConversionProbe#AUCUNE} pour aucune. */
+    public void metriques(EbcdicConversionProbe metriques) {
+        if (metriques != this.metriques) {
+            this.metriques = metriques;
+            this.sonde = metriques.sonde(plan);
+        }
+    }
+
+    /**
+     * En-tête et pied de page : décodage du tampon complet de 20000 octets complété
+     * par des zéros, puis trim, comme l'historique de plcConvert.
+     */
+    public String convertirEntete(ByteBuffer vue, int debut, int longueur) {
+        Arrays.fill(array, (byte) 0);
+        vue.get(debut, array, 0, longueur);
+        return codecEntete.decode(array).trim();
+    }
+
+    /**
+     * Corps : décodage champ à champ selon le plan. La ligne retournée est réutilisée
+     * par l'appel suivant.
+     *
+     * @param resteDonnees des octets suivent l'enregistrement dans le fichier (contrôle verifierChamp)
+     */
+    public LigneSortie convertirCorps(ByteBuffer vue, int debut, int longueur, boolean resteDonnees) throws IOException {
+        ligne.vider();
+        if (sonde == null) {
+            plan.executer(vue, debut, longueur, resteDonnees, ligne, champ);
+            return ligne;
+        }
+        long top = System.nanoTime();
+        try {
+            plan.executer(vue, debut, longueur, resteDonnees, ligne, champ, sonde);
+        } finally {
+            sonde.terminer(longueur, System.nanoTime() - top);
+        }
+        return ligne;
+    }
+
+    /** Corps reçu dans un tableau (lecteurs d'items byte[]), sans ByteBuffer alloué par appel. */
+    public LigneSortie convertirCorps(byte[] source, int longueur, boolean resteDonnees) throws IOException {
+        System.arraycopy(source, 0, array, 0, longueur);
+        return convertirCorps(vueArray, 0, longueur, resteDonnees);
+    }
+}
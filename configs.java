@@ -1,15 +1,92 @@
 @Component
 public class EbcdicConversionTasklet implements Tasklet {
 
+    private static final Logger log = LoggerFactory.getLogger(EbcdicConversionTasklet.class);
+
+    /** Préfixe des statistiques du pipeline dans le contexte d'exécution du step. */
+    public static final String PREFIXE_PIPELINE = "ebcdic.pipeline.";
+
     @Value("#{jobParameters['job.fichier.nom.lecture']}")
     private String nomFichier;
 
+    // PROJECTION pour les fichiers déjà sur disque local (profil sddc), FLUX sinon
+    @Value("${ebcdic.lecture.mode:FLUX}")
+    private EbcdicOutils.ModeLecture modeLecture;
+
+    // Au-delà de 1 thread, le corps est décodé par lots en parallèle (sortie identique)
+    @Value("${ebcdic.parallele.parallelisme:1}")
+    private int parallelisme;
+
+    @Value("${ebcdic.parallele.taille-lot:512}")
+    private int tailleLot;
+
+    // Lecture, décodage (parallelisme threads) et écriture sur des threads distincts
+    @Value("${ebcdic.pipeline.actif:false}")
+    private boolean pipeline;
+
+    // Copybook COBOL du ruban SIC ; sans copybook, la disposition RUBAN_SIC intégrée est utilisée
+    @Value("${ebcdic.copybook.fichier:}")
+    private String copybook;
+
+    // Cache des dispositions analysées : répertoire propre à l'application, jamais partagé
+    @Value("${ebcdic.copybook.cache:${user.home}/.ebcdic/layouts}")
+    private String repertoireCacheCopybook;
+
+    @Value("${ebcdic.copybook.ordre-sortie:}")
+    private String[] ordreSortie;
+
+    @Value("${ebcdic.copybook.largeurs:}")
+    private String[] largeurs;
+
+    @Value("${ebcdic.copybook.champs-bruts:}")
+    private String[] champsBruts;
+
+    // Sortie indépendante de la JVM : jeu de caractères et fin de ligne explicites
+    @Value("${ebcdic.sortie.charset:UTF-8}")
+    private Charset charsetSortie;
+
+    @Value("${ebcdic.sortie.fin-ligne:LF}")
+    private EbcdicOutputSink.FinLigne finLigne;
+
+    // Page de code du flux (CP037, CP1047, CP500, CP297) : le paramètre de job l'emporte sur la propriété
+    @Value("#{jobParameters['job.ebcdic.page-code'] ?: '${ebcdic.page-code:CP037}'}")
+    private EbcdicCodec.PageCode pageCode;
+
+    // LATIN1 conserve les caractères accentués (sortie ISO-8859-1 ou UTF-8), ASCII les remplace par '?'
+    @Value("${ebcdic.sortie.caracteres:ASCII}")
+    private EbcdicCodec.Sortie caracteres;
+
+    // Index <fichier>.idx écrit pendant la conversion séquentielle, un repère tous les N enregistrements (0 : sans index)
+    @Value("${ebcdic.index.pas:0}")
+    private int pasIndex;
+
+    @Autowired
+    private EbcdicConversionMetrics metriquesConversionEbcdic;
+
     @Override
     public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
         String inputFile = nomFichier;
         String outputFile = inputFile + "_ascii.txt"; // fichier intermédiaire en ASCII
 
-        boolean success = EbcdicOutils.plcConvert(inputFile, outputFile);
+        EbcdicRecordLayout layout = chargerLayout().avec(pageCode, caracteres);
+        boolean success;
+        if (pipeline) {
+            EbcdicPipelineConverter convertisseur = new EbcdicPipelineConverter(Math.max(parallelisme, 1), tailleLot, layout);
+            convertisseur.metriques(metriquesConversionEbcdic);
+            success = convertisseur.convertir(inputFile, outputFile, modeLecture, charsetSortie, finLigne.separateur());
+            EbcdicPipelineConverter.Statistiques statistiques = convertisseur.statistiques();
+            log.info("Pipeline EBCDIC : {}", statistiques);
+            // Latences par étage et profondeur des files, consultables dans le JobRepository
+            ExecutionContext contexteStep = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+            statistiques.valeurs().forEach((cle, valeur) -> contexteStep.putLong(PREFIXE_PIPELINE + cle, valeur));
+        } else if (parallelisme > 1) {
+            EbcdicParallelConverter convertisseur = new EbcdicParallelConverter(parallelisme, tailleLot, null, layout);
+            convertisseur.metriques(metriquesConversionEbcdic);
+            success = convertisseur.convertir(inputFile, outputFile, modeLecture, charsetSortie, finLigne.separateur());
+        } else {
+            success = EbcdicOutils.plcConvert(inputFile, outputFile, modeLecture, layout, charsetSortie, finLigne.separateur(),
+                pasIndex, metriquesConversionEbcdic);
+        }
         if (!success) {
             throw new IllegalStateException("Erreur pendant la conversion EBCDIC vers ASCII");
         }
@@ -20,6 +97,18 @@ public class EbcdicConversionTasklet implements Tasklet {
 
         return RepeatStatus.FINISHED;
     }
+
+    private EbcdicRecordLayout chargerLayout() throws IOException {
+        if (copybook.isEmpty()) {
+            return EbcdicRecordLayout.RUBAN_SIC;
+        }
+        CopybookParser.Options options = new CopybookParser.Options()
+            .ordreSortie(ordreSortie)
+            .largeurs(largeurs)
+            .bruts(champsBruts);
+        // Analysée une fois, puis relue depuis le cache tant que la copybook ne change pas
+        return CopybookParser.charger(Paths.get(copybook), options, Paths.get(repertoireCacheCopybook));
+    }
 }
 
 
@@ -43,29 +132,166 @@ public class BatchConfiguration {
             .build();
     }
 
+    // Compteurs de conversion du step repris dans son ExecutionContext (ebcdic.metriques.*)
     @Bean
-    public Step stepConversion() {
+    public Step stepConversion(EbcdicConversionMetrics metriquesConversionEbcdic) {
         return stepBuilderFactory.get("stepConversion")
             .tasklet(conversionTasklet)
+            .listener(metriquesConversionEbcdic)
             .build();
     }
 
+    // Chunk de 100 par défaut ; ajusté au fil du step entre min et max s'ils diffèrent.
+    // Step recréé à chaque exécution du job, avec sa propre politique de chunk
     @Bean
-    public Step stepLecture(FlatFileItemReader<RubanSicDto> reader, ItemProcessor<RubanSicDto, RubanSicDto> processor, ItemWriter<RubanSicDto> writer) {
+    @JobScope
+    public Step stepLecture(FlatFileItemReader<RubanSicDto> reader, ItemProcessor<RubanSicDto, RubanSicDto> processor, ItemWriter<RubanSicDto> writer,
+                            @Value("${chunk.adaptatif.min:100}") int chunkMin,
+                            @Value("${chunk.adaptatif.max:100}") int chunkMax,
+                            @Value("${chunk.adaptatif.duree-cible-ms:2000}") long dureeCibleMs) {
+        AdaptiveChunkCompletionPolicy politique = new AdaptiveChunkCompletionPolicy(100, chunkMin, chunkMax, dureeCibleMs);
         return stepBuilderFactory.get("stepLecture")
-            .<RubanSicDto, RubanSicDto>chunk(100)
+            .<RubanSicDto, RubanSicDto>chunk(politique)
             .reader(reader)
             .processor(processor)
             .writer(writer)
+            .listener((ChunkListener) politique)
+            .build();
+    }
+
+    // Lecture directe du fichier EBCDIC : ni étape de conversion ni fichier intermédiaire,
+    // et une relance reprend au dernier commit
+    @Bean
+    public Job jobLectureEbcdicEnFlux(Step stepLectureEbcdicEnFlux) {
+        return jobBuilderFactory.get("jobLectureEbcdicEnFlux")
+            .start(stepLectureEbcdicEnFlux)
+            .build();
+    }
+
+    @Bean
+    public Step stepLectureEbcdicEnFlux(EbcdicRubanSicItemReader<RubanSicDto> lectureRubanSicEbcdic, ItemProcessor<RubanSicDto, RubanSicDto> processor, ItemWriter<RubanSicDto> writer,
+                                        EbcdicConversionMetrics metriquesConversionEbcdic) {
+        return stepBuilderFactory.get("stepLectureEbcdicEnFlux")
+            .<RubanSicDto, RubanSicDto>chunk(100)
+            .reader(lectureRubanSicEbcdic)
+            .processor(processor)
+            .writer(writer)
+            .listener(metriquesConversionEbcdic)
+            .build();
+    }
+
+    // Même lecture, répartie par plages d'octets sur plusieurs threads ; chaque plage est
+    // un step distinct, relancé seul en cas d'échec
+    @Bean
+    public Job jobLectureEbcdicPartitionnee(Step stepLectureEbcdicPartitionnee) {
+        return jobBuilderFactory.get("jobLectureEbcdicPartitionnee")
+            .start(stepLectureEbcdicPartitionnee)
+            .build();
+    }
+
+    // Métriques suivies sur le step maître : les partitions alimentent les mêmes compteurs
+    @Bean
+    public Step stepLectureEbcdicPartitionnee(EbcdicRangePartitioner partitionneurRubanSic,
+                                              TaskExecutorPartitionHandler partitionHandlerRubanSic,
+                                              EbcdicConversionMetrics metriquesConversionEbcdic) {
+        return stepBuilderFactory.get("stepLectureEbcdicPartitionnee")
+            .partitioner("stepLecturePlageRubanSic", partitionneurRubanSic)
+            .partitionHandler(partitionHandlerRubanSic)
+            .listener(metriquesConversionEbcdic)
+            .build();
+    }
+
+    @Bean
+    public TaskExecutorPartitionHandler partitionHandlerRubanSic(Step stepLecturePlageRubanSic,
+                                                                 @Value("${ebcdic.partition.nombre:4}") int nombrePartitions) {
+        SimpleAsyncTaskExecutor executeur = new SimpleAsyncTaskExecutor("ruban-sic-");
+        executeur.setConcurrencyLimit(nombrePartitions);
+        TaskExecutorPartitionHandler handler = new TaskExecutorPartitionHandler();
+        handler.setStep(stepLecturePlageRubanSic);
+        handler.setTaskExecutor(executeur);
+        handler.setGridSize(nombrePartitions);
+        return handler;
+    }
+
+    @Bean
+    public Step stepLecturePlageRubanSic(EbcdicRubanSicItemReader<RubanSicDto> lecturePlageRubanSic, ItemProcessor<RubanSicDto, RubanSicDto> processor, ItemWriter<RubanSicDto> writer) {
+        return stepBuilderFactory.get("stepLecturePlageRubanSic")
+            .<RubanSicDto, RubanSicDto>chunk(100)
+            .reader(lecturePlageRubanSic)
+            .processor(processor)
+            .writer(writer)
             .build();
     }
 }
 
 
+// Métriques de conversion EBCDIC publiées dans le registre global Micrometer, celui de Spring Batch ;
+// un enregistrement sur N chronométré champ par champ (0 : jamais)
+@Bean
+public EbcdicConversionMetrics metriquesConversionEbcdic(
+        @Value("${ebcdic.metriques.actif:true}") boolean actif,
+        @Value("${ebcdic.metriques.echantillonnage:64}") int echantillonnage
+) {
+    if (!actif) {
+        return EbcdicConversionMetrics.AUCUNE;
+    }
+    return new EbcdicConversionMetrics(Metrics.globalRegistry, "ruban-sic", echantillonnage);
+}
+
+
+@Bean
+@StepScope
+public EbcdicRubanSicItemReader<RubanSicDto> lectureRubanSicEbcdic(
+        @Value("#{jobParameters['job.fichier.nom.lecture']}") String fichierEBCDIC,
+        @Value("${ebcdic.lecture.mode:FLUX}") EbcdicOutils.ModeLecture modeLecture,
+        RubanSicModelLineMapper lineMapper,
+        EbcdicConversionMetrics metriquesConversionEbcdic
+) {
+    EbcdicRubanSicItemReader<RubanSicDto> reader =
+        new EbcdicRubanSicItemReader<>(fichierEBCDIC, lineMapper, modeLecture, EbcdicRecordLayout.RUBAN_SIC);
+    reader.metriques(metriquesConversionEbcdic);
+    return reader;
+}
+
+
+@Bean
+@StepScope
+public EbcdicRangePartitioner partitionneurRubanSic(
+        @Value("#{jobParameters['job.fichier.nom.lecture']}") String fichierEBCDIC,
+        @Value("${ebcdic.lecture.mode:FLUX}") EbcdicOutils.ModeLecture modeLecture,
+        @Value("${ebcdic.index.pas:0}") int pasIndex
+) {
+    // Avec un pas d'index, le premier découpage écrit l'index et les suivants ne relisent plus le fichier
+    return new EbcdicRangePartitioner(fichierEBCDIC, modeLecture, pasIndex);
+}
+
+
+@Bean
+@StepScope
+public EbcdicRubanSicItemReader<RubanSicDto> lecturePlageRubanSic(
+        @Value("#{jobParameters['job.fichier.nom.lecture']}") String fichierEBCDIC,
+        @Value("${ebcdic.lecture.mode:FLUX}") EbcdicOutils.ModeLecture modeLecture,
+        @Value("#{stepExecutionContext['plage.debut']}") Long debut,
+        @Value("#{stepExecutionContext['plage.fin']}") Long fin,
+        @Value("#{stepExecutionContext['plage.numero']}") Integer numero,
+        @Value("#{stepExecutionContext['plage.entete']}") String entete,
+        @Value("#{stepExecutionContext['plage.pied']}") String pied,
+        RubanSicModelLineMapper lineMapper,
+        EbcdicConversionMetrics metriquesConversionEbcdic
+) {
+    EbcdicRubanSicItemReader<RubanSicDto> reader =
+        new EbcdicRubanSicItemReader<>(fichierEBCDIC, lineMapper, modeLecture, EbcdicRecordLayout.RUBAN_SIC);
+    reader.plage(debut, fin, numero, Boolean.parseBoolean(entete), Boolean.parseBoolean(pied));
+    reader.metriques(metriquesConversionEbcdic);
+    return reader;
+}
+
+
 @Bean
 @StepScope
 public Tasklet conversionEbcdicTasklet(
-        @Value("#{jobParameters['job.fichier.nom.lecture']}") String fichierEBCDIC
+        @Value("#{jobParameters['job.fichier.nom.lecture']}") String fichierEBCDIC,
+        @Value("${ebcdic.lecture.mode:FLUX}") EbcdicOutils.ModeLecture modeLecture
 ) {
     return (StepContribution contribution, ChunkContext chunkContext) -> {
         // 1. Créer un fichier temporaire pour la sortie ASCII
@@ -73,7 +299,7 @@ public Tasklet conversionEbcdicTasklet(
         String fichierConverti = tempFile.toAbsolutePath().toString();
 
         // 2. Conversion EBCDIC → ASCII
-        boolean success = EbcdicOutils.plcConvert(fichierEBCDIC, fichierConverti);
+        boolean success = EbcdicOutils.plcConvert(fichierEBCDIC, fichierConverti, modeLecture);
         if (!success) throw new IllegalStateException("Échec conversion EBCDIC → ASCII");
 
         // 3. Stocke le chemin dans le contexte d’exécution du job
@@ -95,6 +321,16 @@ public class BatchFluxPremierJourChargementConfiguration {
     @Value("${chunk.size:5}")
     private int chunkSize;
 
+    // Bornes de la taille de chunk adaptative ; égales à chunk.size par défaut (taille fixe)
+    @Value("${chunk.adaptatif.min:${chunk.size:5}}")
+    private int chunkMin;
+
+    @Value("${chunk.adaptatif.max:${chunk.size:5}}")
+    private int chunkMax;
+
+    @Value("${chunk.adaptatif.duree-cible-ms:2000}")
+    private long dureeCibleChunkMs;
+
     @Bean
     public Job jobFluxPremierJourChargement(
             JobRepository jobRepository,
@@ -110,6 +346,43 @@ public class BatchFluxPremierJourChargementConfiguration {
                 .build();
     }
 
+    /**
+     * Variante pipeline : un seul step, alimenté directement par le flux MFT
+     */
+    @Bean
+    public Job jobFluxPremierJourChargementPipeline(
+            JobRepository jobRepository,
+            @Qualifier("stepChargementFluxPremierJourPipeline") Step stepChargementFluxPremierJourPipeline,
+            LogJobListener logJobListener) {
+        return new JobBuilder(JOB_NAME + "Pipeline", jobRepository)
+                .start(stepChargementFluxPremierJourPipeline)
+                .listener(logJobListener)
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step stepChargementFluxPremierJourPipeline(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("beanLectureFluxPremierJourPipeline") EbcdicRubanSicItemReader<RubanSicDto> reader,
+            EbcdicConversionMetrics metriquesConversionEbcdic
+    ) {
+        AdaptiveChunkCompletionPolicy politique = politiqueChunk();
+        return new StepBuilder("stepChargementFluxPremierJourPipeline", jobRepository)
+                .<RubanSicDto, RubanSicDto>chunk(politique, transactionManager)
+                .reader(reader)
+                .listener((ChunkListener) politique)
+                .listener(metriquesConversionEbcdic)
+                .build();
+    }
+
+    // Une politique par step et par exécution du job (steps @JobScope) : elle suit la taille
+    // et l'historique de sa propre exécution de step
+    private AdaptiveChunkCompletionPolicy politiqueChunk() {
+        return new AdaptiveChunkCompletionPolicy(chunkSize, chunkMin, chunkMax, dureeCibleChunkMs);
+    }
+
     /**
      * Step de conversion EBCDIC -> ASCII
      */
@@ -136,18 +409,21 @@ public class BatchFluxPremierJourChargementConfiguration {
      * Step principal de lecture/traitement du fichier converti
      */
     @Bean
+    @JobScope
     public Step stepChargementFluxPremierJour(
             JobRepository jobRepository,
             PlatformTransactionManager transactionManager,
             @Qualifier("beanLectureFluxPremierJourChargement") FlatFileItemReader<RubanSicDto> reader,
             // ... autres beans comme processor, writer, listener
     ) {
+        AdaptiveChunkCompletionPolicy politique = politiqueChunk();
         return new StepBuilder("stepChargementFluxPremierJour", jobRepository)
-                .<RubanSicDto, RubanSicDto>chunk(chunkSize, transactionManager)
+                .<RubanSicDto, RubanSicDto>chunk(politique, transactionManager)
                 .reader(reader)
                 // .processor(processor)
                 // .writer(writer)
                 // .listener(listener)
+                .listener((ChunkListener) politique)
                 .build();
     }
 
@@ -223,3 +499,27 @@ public Tasklet conversionEbcdicTasklet(
         return RepeatStatus.FINISHED;
     };
 }
+
+
+// Mode pipeline : le flux MFT est lu une seule fois et décodé au fil du téléchargement,
+// sans fichiers source_*.ebc / converted_*.txt ni step de nettoyage
+@Bean("beanLectureFluxPremierJourPipeline")
+@StepScope
+public EbcdicRubanSicItemReader<RubanSicDto> lectureFluxPremierJourPipeline(
+    @Value("#{jobParameters['job.fichier.nom.lecture']}") String nomFichier,
+    @Value("${ebcdic.mft.tampon:4194304}") int capaciteTampon,
+    MFTClient mftClient,
+    RubanSicModelLineMapper lineMapper,
+    EbcdicConversionMetrics metriquesConversionEbcdic
+) {
+    Resource resource = new MftFileResourceBuilder()
+        .mftClient(mftClient)
+        .nomConfiguration("flux_premier_jour_lecture")
+        .nomFichier(nomFichier)
+        .build();
+
+    EbcdicRubanSicItemReader<RubanSicDto> reader =
+        new EbcdicRubanSicItemReader<>(resource, lineMapper, EbcdicRecordLayout.RUBAN_SIC, capaciteTampon);
+    reader.metriques(metriquesConversionEbcdic);
+    return reader;
+}